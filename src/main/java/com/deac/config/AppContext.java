@@ -4,6 +4,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.concurrent.Executor;
 
@@ -35,4 +36,46 @@ public class AppContext {
         return executor;
     }
 
+    @Bean(name = "imageExecutor")
+    public Executor taskExecutorImage() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(Runtime.getRuntime().availableProcessors());
+        executor.setQueueCapacity(100);
+        executor.setRejectedExecutionHandler(new RejectedExecutionHandlerImpl());
+        executor.initialize();
+        executor.setThreadNamePrefix("image-task-executor");
+        return executor;
+    }
+
+    @Bean(name = "searchIndexRebuildExecutor")
+    public Executor taskExecutorSearchIndexRebuild() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new RejectedExecutionHandlerImpl());
+        executor.initialize();
+        executor.setThreadNamePrefix("search-index-rebuild-executor");
+        return executor;
+    }
+
+    @Bean(name = "searchIndexScheduler")
+    public ThreadPoolTaskScheduler taskSchedulerSearchIndex() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("search-index-task-scheduler");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    @Bean(name = "newsScheduler")
+    public ThreadPoolTaskScheduler taskSchedulerNews() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("news-task-scheduler");
+        scheduler.initialize();
+        return scheduler;
+    }
+
 }
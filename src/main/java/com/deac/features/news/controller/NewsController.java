@@ -2,11 +2,19 @@ package com.deac.features.news.controller;
 
 import com.deac.features.news.dto.*;
 import com.deac.features.news.service.NewsService;
+import com.deac.features.news.service.cache.NewsResponseCache;
+import com.deac.features.news.service.images.NewsImageService;
 import com.deac.response.ResponseMessage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.List;
 
@@ -15,9 +23,15 @@ public class NewsController {
 
     private final NewsService newsService;
 
+    private final NewsResponseCache newsResponseCache;
+
+    private final NewsImageService newsImageService;
+
     @Autowired
-    public NewsController(NewsService newsService) {
+    public NewsController(NewsService newsService, NewsResponseCache newsResponseCache, NewsImageService newsImageService) {
         this.newsService = newsService;
+        this.newsResponseCache = newsResponseCache;
+        this.newsImageService = newsImageService;
     }
 
     @PostMapping("/api/admin/news/upload_image")
@@ -49,68 +63,183 @@ public class NewsController {
         return new ResponseMessage(newsService.updateNews(modifyDto));
     }
 
+    @PostMapping("/api/admin/news/search/rebuild")
+    public ResponseMessage rebuildSearchIndex() {
+        return new ResponseMessage(newsService.rebuildSearchIndex());
+    }
+
+    @GetMapping("/api/admin/news/search/rebuild/status")
+    public SearchIndexRebuildStatusDto getSearchIndexRebuildStatus() {
+        return newsService.getSearchIndexRebuildStatus();
+    }
+
+    @GetMapping("/api/admin/news/search/cache")
+    public CacheStatisticsDto getSearchCacheStatistics() {
+        return newsService.getSearchCacheStatistics();
+    }
+
+    @GetMapping("/api/admin/news/search/guards")
+    public SearchGuardStatisticsDto getSearchGuardStatistics() {
+        return newsService.getSearchGuardStatistics();
+    }
+
+    @GetMapping("/api/admin/news/cache")
+    public CacheStatisticsDto getResponseCacheStatistics() {
+        return newsResponseCache.getStatistics();
+    }
+
     @GetMapping("/api/news/list")
     public List<NewsInfoDto> listNews(@RequestParam(name = "pageNumber") int pageNumber,
-                                      @RequestParam(name = "entriesPerPage") int entriesPerPage) {
+                                      @RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                      WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag())) {
+            return null;
+        }
         return newsService.listNews(pageNumber, entriesPerPage);
     }
 
+    @GetMapping("/api/news/list/cursor")
+    public NewsPageDto listNewsAfterCursor(@RequestParam(name = "cursor", required = false) String cursor,
+                                           @RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                           WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag())) {
+            return null;
+        }
+        return newsService.listNewsAfterCursor(cursor, entriesPerPage);
+    }
+
     @GetMapping("/api/news/latest")
-    public List<NewsInfoDto> listLatestNews(@RequestParam(name = "entriesPerPage") int entriesPerPage) {
-        return newsService.getLatestNews(entriesPerPage);
+    public ResponseEntity<byte[]> listLatestNews(@RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                                 WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag())) {
+            return null;
+        }
+        return jsonResponse(newsResponseCache.get("latest:" + entriesPerPage, () -> newsService.getLatestNews(entriesPerPage)));
     }
 
     @GetMapping("/api/news/latest_excluded")
     public List<NewsInfoDto> listLatestNewsWithExcluded(@RequestParam(name = "entriesPerPage") int entriesPerPage,
-                                                        @RequestParam(name = "excludedId") int excludedId) {
+                                                        @RequestParam(name = "excludedId") int excludedId,
+                                                        WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag())) {
+            return null;
+        }
         return newsService.getLatestNewsWithExcluded(entriesPerPage, excludedId);
     }
 
     @GetMapping("/api/news/recommended/author")
-    public List<NewsInfoDto> listMostPopularNewsByAuthorWithExcluded(@RequestParam(name = "author") String author,
-                                                                     @RequestParam(name = "entriesPerPage") int entriesPerPage,
-                                                                     @RequestParam(name = "excludedId") int excludedId) {
-        return newsService.getMostPopularNewsByAuthorWithExcluded(author, entriesPerPage, excludedId);
+    public List<NewsInfoDto> listRelatedNews(@RequestParam(name = "author") String author,
+                                             @RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                             @RequestParam(name = "excludedId") int excludedId,
+                                             WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getRelatedVersionTag(entriesPerPage))) {
+            return null;
+        }
+        return newsService.getRelatedNews(author, entriesPerPage, excludedId);
     }
 
     @GetMapping("/api/news/list/author")
     public List<NewsInfoDto> listNewsByAuthor(@RequestParam(name = "author") String author,
                                               @RequestParam(name = "pageNumber") int pageNumber,
-                                              @RequestParam(name = "entriesPerPage") int entriesPerPage) {
+                                              @RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                              WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag())) {
+            return null;
+        }
         return newsService.listNewsByAuthor(author, pageNumber, entriesPerPage);
     }
 
+    @GetMapping("/api/news/list/author/cursor")
+    public NewsPageDto listNewsByAuthorAfterCursor(@RequestParam(name = "author") String author,
+                                                   @RequestParam(name = "cursor", required = false) String cursor,
+                                                   @RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                                   WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag())) {
+            return null;
+        }
+        return newsService.listNewsByAuthorAfterCursor(author, cursor, entriesPerPage);
+    }
+
     @GetMapping("/api/news/top/home")
-    public List<NewsInfoDto> listLatestMostPopularNews(@RequestParam(name = "entriesPerPage") int entriesPerPage) {
-        return newsService.getLatestMostPopularNews(entriesPerPage);
+    public ResponseEntity<byte[]> listLatestMostPopularNews(@RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                                            WebRequest webRequest) {
+        String versionTag = newsService.getTrendingVersionTag(entriesPerPage);
+        if (webRequest.checkNotModified(versionTag)) {
+            return null;
+        }
+        return jsonResponse(newsResponseCache.get("top:" + entriesPerPage + ":" + versionTag, () -> newsService.getLatestMostPopularNews(entriesPerPage)));
     }
 
     @GetMapping("/api/news/count")
-    public Long getNumberOfNews() {
-        return newsService.getNumberOfNews();
+    public ResponseEntity<byte[]> getNumberOfNews(WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag())) {
+            return null;
+        }
+        return jsonResponse(newsResponseCache.get("count", newsService::getNumberOfNews));
     }
 
     @GetMapping("/api/news/count/author")
-    public Long getNumberOfNewsByAuthor(@RequestParam(name = "author") String author) {
+    public Long getNumberOfNewsByAuthor(@RequestParam(name = "author") String author,
+                                        WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag())) {
+            return null;
+        }
         return newsService.getNumberOfNewsByAuthor(author);
     }
 
     @GetMapping("/api/news/open")
-    public NewsInfoDto getSingleNews(@RequestParam(name = "id") Integer id) {
-        return newsService.getSingleNews(id);
+    public ResponseEntity<byte[]> getSingleNews(@RequestParam(name = "id") Integer id, HttpServletRequest request, WebRequest webRequest) {
+        String clientFingerprint = request.getRemoteAddr() + "|" + request.getHeader(HttpHeaders.USER_AGENT);
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag(id))) {
+            newsService.registerView(id, clientFingerprint);
+            return null;
+        }
+        byte[] body = newsResponseCache.get("open:" + id, () -> newsService.getSingleNews(id));
+        newsService.registerView(id, clientFingerprint);
+        return jsonResponse(body);
+    }
+
+    @GetMapping("/api/news/history")
+    public List<ModifyInfoDto> getNewsHistory(@RequestParam(name = "id") Integer id,
+                                              @RequestParam(name = "pageNumber") int pageNumber,
+                                              @RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                              WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getNewsVersionTag(id))) {
+            return null;
+        }
+        return newsService.getNewsHistory(id, pageNumber, entriesPerPage);
+    }
+
+    @GetMapping("/api/news/images/{filename:.+}")
+    public void getImage(@PathVariable(name = "filename") String filename, HttpServletRequest request, HttpServletResponse response) {
+        newsImageService.serveImage(filename, request, response);
     }
 
     @GetMapping("/api/news/search/top")
     public NewsSearchBarDto getTopSearchResults(@RequestParam(name = "title") String searchTerm,
-                                                @RequestParam(name = "entriesPerPage") int entriesPerPage) {
+                                                @RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                                WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getSearchVersionTag())) {
+            return null;
+        }
         return newsService.getTopSearchResults(searchTerm, entriesPerPage);
     }
 
     @GetMapping("/api/news/search")
     public NewsSearchListDto searchNews(@RequestParam(name = "title") String searchTerm,
+                                        @RequestParam(name = "author", required = false) String author,
+                                        @RequestParam(name = "period", required = false) String period,
                                         @RequestParam(name = "pageNumber") int pageNumber,
-                                        @RequestParam(name = "entriesPerPage") int entriesPerPage) {
-        return newsService.searchNews(searchTerm, pageNumber, entriesPerPage);
+                                        @RequestParam(name = "entriesPerPage") int entriesPerPage,
+                                        WebRequest webRequest) {
+        if (webRequest.checkNotModified(newsService.getSearchVersionTag())) {
+            return null;
+        }
+        return newsService.searchNews(searchTerm, author, period, pageNumber, entriesPerPage);
+    }
+
+    private static ResponseEntity<byte[]> jsonResponse(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
     }
 
 }
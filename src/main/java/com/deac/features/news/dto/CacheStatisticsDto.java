@@ -0,0 +1,20 @@
+package com.deac.features.news.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatisticsDto {
+
+    private long size;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+}
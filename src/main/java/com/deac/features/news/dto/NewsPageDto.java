@@ -0,0 +1,18 @@
+package com.deac.features.news.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsPageDto {
+
+    private List<NewsInfoDto> results;
+
+    private String nextCursor;
+
+}
@@ -15,4 +15,6 @@ public class NewsSearchBarDto {
 
     private Long numberOfResults;
 
+    private String correctedQuery;
+
 }
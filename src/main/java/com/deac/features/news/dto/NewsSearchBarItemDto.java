@@ -2,6 +2,8 @@ package com.deac.features.news.dto;
 
 import lombok.*;
 
+import java.util.Date;
+
 @Getter
 @Setter
 @ToString
@@ -15,4 +17,8 @@ public class NewsSearchBarItemDto {
 
     private String indexImageUrl;
 
+    private String author;
+
+    private Date createDate;
+
 }
@@ -3,6 +3,7 @@ package com.deac.features.news.dto;
 import lombok.*;
 
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -15,4 +16,12 @@ public class NewsSearchListDto {
 
     private Long numberOfResults;
 
+    private String correctedQuery;
+
+    private Map<Integer, String> snippets;
+
+    private List<FacetCountDto> authorFacets;
+
+    private List<FacetCountDto> periodFacets;
+
 }
@@ -0,0 +1,16 @@
+package com.deac.features.news.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchGuardStatisticsDto {
+
+    private long rejectedSearches;
+
+    private long timedOutSearches;
+
+}
@@ -0,0 +1,30 @@
+package com.deac.features.news.dto;
+
+import lombok.*;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchIndexRebuildStatusDto {
+
+    private boolean running;
+
+    private boolean failed;
+
+    private long indexedDocuments;
+
+    private long totalDocuments;
+
+    private long elapsedMillis;
+
+    private double documentsPerSecond;
+
+    private Date startDate;
+
+    private Date finishDate;
+
+}
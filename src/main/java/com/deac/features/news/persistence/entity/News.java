@@ -10,6 +10,10 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(columnList = "createDate, id"),
+        @Index(columnList = "author_id, createDate, id")
+})
 @Getter
 @Setter
 @ToString
@@ -44,9 +48,18 @@ public class News {
     @ToString.Exclude
     private List<ModifyEntry> modifyEntries;
 
+    private Date lastModifiedDate;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    private User lastModifiedBy;
+
     @Column(nullable = false)
     private Long numberOfViews = 0L;
 
+    @Column(nullable = false)
+    private Long numberOfUniqueViewers = 0L;
+
     public News(String title, String description, String content, String indexImageUrl, User author, Date createDate) {
         this.title = title;
         this.description = description;
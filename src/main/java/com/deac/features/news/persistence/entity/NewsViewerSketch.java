@@ -0,0 +1,31 @@
+package com.deac.features.news.persistence.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class NewsViewerSketch {
+
+    @Id
+    @Column(nullable = false)
+    private Integer newsId;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "BLOB")
+    @ToString.Exclude
+    private byte[] sketch;
+
+    public NewsViewerSketch(Integer newsId, byte[] sketch) {
+        this.newsId = newsId;
+        this.sketch = sketch;
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.deac.features.news.persistence.projection;
+
+import java.util.Date;
+
+public interface ModifyEntryProjection {
+
+    Date getModifyDate();
+
+    String getModifyAuthor();
+
+}
@@ -0,0 +1,11 @@
+package com.deac.features.news.persistence.projection;
+
+public interface NewsAuthorCountProjection {
+
+    Integer getAuthorId();
+
+    String getUsername();
+
+    Long getNumberOfNews();
+
+}
@@ -0,0 +1,21 @@
+package com.deac.features.news.persistence.projection;
+
+import java.util.Date;
+
+public interface NewsIndexProjection {
+
+    Integer getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    String getContent();
+
+    String getIndexImageUrl();
+
+    String getAuthor();
+
+    Date getCreateDate();
+
+}
@@ -0,0 +1,23 @@
+package com.deac.features.news.persistence.projection;
+
+import java.util.Date;
+
+public interface NewsListProjection {
+
+    Integer getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    String getIndexImageUrl();
+
+    String getAuthor();
+
+    Date getCreateDate();
+
+    Date getLastModifiedDate();
+
+    String getLastModifiedBy();
+
+}
@@ -0,0 +1,15 @@
+package com.deac.features.news.persistence.projection;
+
+import java.util.Date;
+
+public interface NewsPopularityProjection {
+
+    Integer getId();
+
+    Long getNumberOfViews();
+
+    Long getNumberOfUniqueViewers();
+
+    Date getCreateDate();
+
+}
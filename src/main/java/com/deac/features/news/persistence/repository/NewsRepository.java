@@ -1,14 +1,21 @@
 package com.deac.features.news.persistence.repository;
 
 import com.deac.features.news.persistence.entity.News;
+import com.deac.features.news.persistence.projection.ModifyEntryProjection;
+import com.deac.features.news.persistence.projection.NewsAuthorCountProjection;
+import com.deac.features.news.persistence.projection.NewsIndexProjection;
+import com.deac.features.news.persistence.projection.NewsListProjection;
+import com.deac.features.news.persistence.projection.NewsPopularityProjection;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -16,40 +23,97 @@ import java.util.Optional;
 @Repository
 public interface NewsRepository extends JpaRepository<News, Integer> {
 
-    @EntityGraph(attributePaths = {"author", "modifyEntries", "modifyEntries.modifyAuthor"})
+    String LIST_ENTRY_QUERY = "SELECT n.id AS id, n.title AS title, n.description AS description, n.indexImageUrl AS indexImageUrl, a.username AS author, " +
+            "n.createDate AS createDate, n.lastModifiedDate AS lastModifiedDate, m.username AS lastModifiedBy " +
+            "FROM News n LEFT JOIN n.author a LEFT JOIN n.lastModifiedBy m ";
+
+    @EntityGraph(attributePaths = {"author", "lastModifiedBy"})
     Optional<News> findDistinctById(Integer id);
 
-    List<News> findBy(Pageable pageable);
+    @EntityGraph(attributePaths = {"author", "modifyEntries"})
+    Optional<News> findWithModifyEntriesById(Integer id);
+
+    @Query(LIST_ENTRY_QUERY)
+    List<NewsListProjection> findListEntriesBy(Pageable pageable);
+
+    @Query(LIST_ENTRY_QUERY + "WHERE a.id = :authorId")
+    List<NewsListProjection> findListEntriesByAuthorId(@Param("authorId") Integer authorId, Pageable pageable);
+
+    @Query(LIST_ENTRY_QUERY + "WHERE n.id <> :excludedId")
+    List<NewsListProjection> findListEntriesByIdNot(@Param("excludedId") int excludedId, Pageable pageable);
 
-    List<News> findByAuthorId(Integer authorId, Pageable pageable);
+    @Query(LIST_ENTRY_QUERY + "WHERE n.id NOT IN :excludedIds")
+    List<NewsListProjection> findListEntriesByIdNotIn(@Param("excludedIds") Collection<Integer> excludedIds, Pageable pageable);
 
-    List<News> findByIdNot(int excludedId, Pageable pageable);
+    @Query(LIST_ENTRY_QUERY + "WHERE n.createDate <= :date AND (n.createDate < :date OR n.id < :id) " +
+            "ORDER BY n.createDate DESC, n.id DESC")
+    List<NewsListProjection> findListEntriesByCreateDateAndIdBefore(@Param("date") Date createDate, @Param("id") Integer id, Pageable pageable);
 
-    List<News> findByAuthorIdAndIdNot(Integer authorId, int excludedId, Pageable pageable);
+    @Query(LIST_ENTRY_QUERY + "WHERE a.id = :authorId AND n.createDate <= :date AND (n.createDate < :date OR n.id < :id) " +
+            "ORDER BY n.createDate DESC, n.id DESC")
+    List<NewsListProjection> findListEntriesByAuthorIdAndCreateDateAndIdBefore(@Param("authorId") Integer authorId, @Param("date") Date createDate, @Param("id") Integer id, Pageable pageable);
 
-    List<News> findByAuthorIdNotAndIdNot(Integer authorId, int excludedId, Pageable pageable);
+    @Query(LIST_ENTRY_QUERY + "WHERE n.id IN :ids")
+    List<NewsListProjection> findListEntriesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT m.modifyDate AS modifyDate, a.username AS modifyAuthor " +
+            "FROM News n JOIN n.modifyEntries m LEFT JOIN m.modifyAuthor a WHERE n.id = :id ORDER BY m.modifyDate DESC")
+    List<ModifyEntryProjection> findModifyEntriesByNewsId(@Param("id") Integer id, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE news n SET " +
+            "n.last_modified_date = (SELECT MAX(m.modify_date) FROM news_modify_entries nm JOIN modify_entry m ON m.id = nm.modify_entries_id " +
+            "WHERE nm.news_id = n.id), " +
+            "n.last_modified_by_id = (SELECT m.modify_author_id FROM news_modify_entries nm JOIN modify_entry m ON m.id = nm.modify_entries_id " +
+            "WHERE nm.news_id = n.id ORDER BY m.modify_date DESC, m.id DESC LIMIT 1) " +
+            "WHERE n.last_modified_date IS NULL AND EXISTS (SELECT 1 FROM news_modify_entries nm WHERE nm.news_id = n.id)", nativeQuery = true)
+    int backfillLastModified();
 
-    List<News> findByCreateDateAfter(Date createDate, Pageable pageable);
+    boolean existsByLastModifiedDateIsNullAndModifyEntriesIsNotEmpty();
 
-    List<News> findByCreateDateBefore(Date createDate, Pageable pageable);
+    @Query("SELECT a.id AS authorId, a.username AS username, COUNT(n) AS numberOfNews FROM News n LEFT JOIN n.author a GROUP BY a.id, a.username")
+    List<NewsAuthorCountProjection> countGroupByAuthor();
 
-    @EntityGraph(attributePaths = {"author", "modifyEntries", "modifyEntries.modifyAuthor"})
-    List<News> findDistinctByIdIn(List<Integer> ids);
+    @Query("SELECT a.id FROM News n LEFT JOIN n.author a WHERE n.id IN :ids")
+    List<Integer> findAuthorIdsByIdIn(@Param("ids") Collection<Integer> ids);
 
-    @EntityGraph(attributePaths = {"author", "modifyEntries", "modifyEntries.modifyAuthor"})
-    List<News> findDistinctByIdInOrderByCreateDateDesc(List<Integer> ids);
+    @Query("SELECT n.id FROM News n")
+    List<Integer> findAllIds();
 
-    @EntityGraph(attributePaths = {"author", "modifyEntries", "modifyEntries.modifyAuthor"})
-    List<News> findDistinctByIdInOrderByNumberOfViewsDescCreateDateDesc(List<Integer> ids);
+    @Query("SELECT n.id AS id, n.numberOfViews AS numberOfViews, n.numberOfUniqueViewers AS numberOfUniqueViewers, n.createDate AS createDate " +
+            "FROM News n WHERE n.createDate > :date")
+    List<NewsPopularityProjection> findPopularityByCreateDateAfter(@Param("date") Date date);
 
-    long countByAuthorId(Integer authorId);
+    @Query("SELECT n.id AS id, n.title AS title, n.description AS description, n.content AS content, n.indexImageUrl AS indexImageUrl, " +
+            "a.username AS author, n.createDate AS createDate " +
+            "FROM News n LEFT JOIN n.author a WHERE n.id > :id ORDER BY n.id")
+    List<NewsIndexProjection> findIndexEntriesByIdGreaterThan(@Param("id") Integer id, Pageable pageable);
 
-    @Query("SELECT count(n) FROM News n WHERE n.id IN :ids")
-    Integer findExistingMatchingNewsCount(List<Integer> ids);
+    @Query("SELECT n.id AS id, n.title AS title, n.description AS description, n.content AS content, n.indexImageUrl AS indexImageUrl, " +
+            "a.username AS author, n.createDate AS createDate " +
+            "FROM News n LEFT JOIN n.author a WHERE n.id IN :ids")
+    List<NewsIndexProjection> findIndexEntriesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT n.id AS id, n.title AS title, n.description AS description, n.content AS content, n.indexImageUrl AS indexImageUrl, " +
+            "a.username AS author, n.createDate AS createDate " +
+            "FROM News n LEFT JOIN n.author a " +
+            "WHERE n.id > :id OR n.createDate > :date OR n.lastModifiedDate > :date")
+    List<NewsIndexProjection> findIndexEntriesChangedSince(@Param("id") Integer id, @Param("date") Date date);
 
     @Modifying
     @Transactional
     @Query("DELETE FROM News n WHERE n.id IN :ids")
     void deleteInBatchByIds(List<Integer> ids);
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE News n SET n.numberOfViews = n.numberOfViews + :views WHERE n.id = :id")
+    int incrementNumberOfViews(@Param("id") Integer id, @Param("views") Long views);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE News n SET n.numberOfUniqueViewers = :viewers WHERE n.id = :id")
+    int updateNumberOfUniqueViewers(@Param("id") Integer id, @Param("viewers") Long viewers);
+
 }
@@ -0,0 +1,21 @@
+package com.deac.features.news.persistence.repository;
+
+import com.deac.features.news.persistence.entity.NewsViewerSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface NewsViewerSketchRepository extends JpaRepository<NewsViewerSketch, Integer> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NewsViewerSketch s WHERE s.newsId IN :ids")
+    void deleteInBatchByNewsIds(@Param("ids") List<Integer> ids);
+
+}
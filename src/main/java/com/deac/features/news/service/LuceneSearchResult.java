@@ -1,5 +1,6 @@
 package com.deac.features.news.service;
 
+import com.deac.features.news.dto.FacetCountDto;
 import lombok.*;
 import org.apache.lucene.document.Document;
 
@@ -14,6 +15,16 @@ public class LuceneSearchResult {
 
     private List<Document> results;
 
+    private List<String> snippets;
+
     private Long numberOfResults;
 
+    private boolean partial;
+
+    private String correctedQuery;
+
+    private List<FacetCountDto> authorFacets;
+
+    private List<FacetCountDto> periodFacets;
+
 }
@@ -17,16 +17,24 @@ public interface NewsService {
 
     String updateNews(ModifyDto modifyDto);
 
+    String rebuildSearchIndex();
+
+    SearchIndexRebuildStatusDto getSearchIndexRebuildStatus();
+
     List<NewsInfoDto> listNews(int pageNumber, int pageSize);
 
+    NewsPageDto listNewsAfterCursor(String cursor, int pageSize);
+
     List<NewsInfoDto> getLatestNews(int pageSize);
 
     List<NewsInfoDto> getLatestNewsWithExcluded(int pageSize, int excludedId);
 
-    List<NewsInfoDto> getMostPopularNewsByAuthorWithExcluded(String author, int pageSize, int excludedId);
+    List<NewsInfoDto> getRelatedNews(String author, int pageSize, int excludedId);
 
     List<NewsInfoDto> listNewsByAuthor(String author, int pageNumber, int entriesPerPage);
 
+    NewsPageDto listNewsByAuthorAfterCursor(String author, String cursor, int pageSize);
+
     List<NewsInfoDto> getLatestMostPopularNews(int pageSize);
 
     long getNumberOfNews();
@@ -35,7 +43,25 @@ public interface NewsService {
 
     NewsInfoDto getSingleNews(Integer id);
 
+    List<ModifyInfoDto> getNewsHistory(Integer id, int pageNumber, int pageSize);
+
     NewsSearchBarDto getTopSearchResults(String searchTerm, int pageSize);
 
-    NewsSearchListDto searchNews(String searchTerm, int pageNumber, int pageSize);
+    NewsSearchListDto searchNews(String searchTerm, String author, String period, int pageNumber, int pageSize);
+
+    CacheStatisticsDto getSearchCacheStatistics();
+
+    SearchGuardStatisticsDto getSearchGuardStatistics();
+
+    void registerView(Integer id, String clientFingerprint);
+
+    String getNewsVersionTag();
+
+    String getNewsVersionTag(Integer id);
+
+    String getRelatedVersionTag(int pageSize);
+
+    String getTrendingVersionTag(int pageSize);
+
+    String getSearchVersionTag();
 }
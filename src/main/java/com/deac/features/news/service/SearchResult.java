@@ -1,8 +1,11 @@
 package com.deac.features.news.service;
 
+import com.deac.features.news.dto.FacetCountDto;
+import com.deac.features.news.dto.NewsSearchBarItemDto;
 import lombok.*;
 
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -11,8 +14,16 @@ import java.util.List;
 @AllArgsConstructor
 public class SearchResult {
 
-    private List<Integer> results;
+    private List<NewsSearchBarItemDto> results;
 
     private long numberOfResults;
 
+    private String correctedQuery;
+
+    private Map<Integer, String> snippets;
+
+    private List<FacetCountDto> authorFacets;
+
+    private List<FacetCountDto> periodFacets;
+
 }
@@ -0,0 +1,15 @@
+package com.deac.features.news.service.cache;
+
+import com.deac.features.news.dto.CacheStatisticsDto;
+
+import java.util.function.Supplier;
+
+public interface NewsResponseCache {
+
+    byte[] get(String key, Supplier<?> loader);
+
+    void evictAll();
+
+    CacheStatisticsDto getStatistics();
+
+}
@@ -0,0 +1,112 @@
+package com.deac.features.news.service.cache.impl;
+
+import com.deac.exception.MyException;
+import com.deac.features.news.dto.CacheStatisticsDto;
+import com.deac.features.news.service.cache.NewsResponseCache;
+import com.deac.misc.LruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of serialized JSON responses. Concurrent misses on the same key share a single load, and a
+ * load that overlaps an eviction is returned to its callers but not stored.
+ */
+@Service
+public class NewsResponseCacheImpl implements NewsResponseCache {
+
+    private final ObjectMapper objectMapper;
+
+    private final long timeToLiveMillis;
+
+    private final LruCache<String, CachedResponse> responses;
+
+    private final Map<String, CompletableFuture<byte[]>> pendingLoads = new ConcurrentHashMap<>();
+
+    private volatile long evictionGeneration = 0;
+
+    @Autowired
+    public NewsResponseCacheImpl(ObjectMapper objectMapper, Environment environment) {
+        this.objectMapper = objectMapper;
+        timeToLiveMillis = environment.getProperty("news.cache.ttl", Long.class, 60000L);
+        responses = new LruCache<>(environment.getProperty("news.cache.size", Integer.class, 500));
+    }
+
+    @Override
+    public byte[] get(String key, Supplier<?> loader) {
+        CachedResponse cachedResponse = responses.get(key);
+        if (cachedResponse != null) {
+            if (cachedResponse.getExpiresAt() > System.currentTimeMillis()) {
+                return cachedResponse.getBody();
+            }
+            responses.remove(key);
+        }
+        CompletableFuture<byte[]> load = new CompletableFuture<>();
+        CompletableFuture<byte[]> pendingLoad = pendingLoads.putIfAbsent(key, load);
+        if (pendingLoad != null) {
+            return awaitLoad(pendingLoad);
+        }
+        try {
+            long generation = evictionGeneration;
+            byte[] body = objectMapper.writeValueAsBytes(loader.get());
+            synchronized (this) {
+                if (generation == evictionGeneration) {
+                    responses.put(key, new CachedResponse(body, System.currentTimeMillis() + timeToLiveMillis));
+                }
+            }
+            load.complete(body);
+            return body;
+        } catch (JsonProcessingException e) {
+            MyException exception = new MyException("Response serialization failed", HttpStatus.INTERNAL_SERVER_ERROR);
+            load.completeExceptionally(exception);
+            throw exception;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLoads.remove(key, load);
+        }
+    }
+
+    private static byte[] awaitLoad(CompletableFuture<byte[]> pendingLoad) {
+        try {
+            return pendingLoad.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void evictAll() {
+        evictionGeneration++;
+        responses.clear();
+    }
+
+    @Override
+    public CacheStatisticsDto getStatistics() {
+        return new CacheStatisticsDto(responses.size(), responses.getHits(), responses.getMisses(), responses.getEvictions());
+    }
+
+    @Value
+    private static class CachedResponse {
+
+        byte[] body;
+
+        long expiresAt;
+
+    }
+
+}
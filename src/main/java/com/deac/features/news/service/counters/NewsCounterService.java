@@ -0,0 +1,17 @@
+package com.deac.features.news.service.counters;
+
+import java.util.List;
+
+public interface NewsCounterService {
+
+    long getNumberOfNews();
+
+    long getNumberOfNewsByAuthor(String author);
+
+    void newsCreated(Integer authorId);
+
+    void newsDeleted(List<Integer> authorIds);
+
+    void reconcileCounters();
+
+}
@@ -0,0 +1,120 @@
+package com.deac.features.news.service.counters.impl;
+
+import com.deac.features.news.persistence.projection.NewsAuthorCountProjection;
+import com.deac.features.news.persistence.repository.NewsRepository;
+import com.deac.features.news.service.counters.NewsCounterService;
+import com.deac.misc.IntIntHashMap;
+import com.deac.user.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Keeps the total and per-author news counts in memory. Counts are loaded once, adjusted by every create and delete,
+ * and periodically replaced with fresh database counts; a reconciliation that overlaps a mutation is discarded and
+ * retried on the next run.
+ */
+@Service
+public class NewsCounterServiceImpl implements NewsCounterService {
+
+    private final NewsRepository newsRepository;
+
+    private final UserService userService;
+
+    private final Map<String, Integer> authorIds = new ConcurrentHashMap<>();
+
+    private IntIntHashMap numberOfNewsByAuthor = new IntIntHashMap();
+
+    private long numberOfNews;
+
+    private long mutationGeneration = 0;
+
+    private final ScheduledFuture<?> reconcileCountersTask;
+
+    @Autowired
+    public NewsCounterServiceImpl(NewsRepository newsRepository, UserService userService, ThreadPoolTaskScheduler newsScheduler, Environment environment) {
+        this.newsRepository = newsRepository;
+        this.userService = userService;
+        reconcileCounters();
+        long reconcileIntervalMillis = environment.getProperty("news.counters.reconcile.interval", Long.class, 600000L);
+        reconcileCountersTask = newsScheduler.scheduleWithFixedDelay(this::reconcileCounters,
+                new Date(System.currentTimeMillis() + reconcileIntervalMillis),
+                reconcileIntervalMillis);
+    }
+
+    @Override
+    public synchronized long getNumberOfNews() {
+        return numberOfNews;
+    }
+
+    @Override
+    public long getNumberOfNewsByAuthor(String author) {
+        Integer authorId = authorIds.computeIfAbsent(author, username -> userService.getUserByUsername(username).getId());
+        synchronized (this) {
+            return numberOfNewsByAuthor.get(authorId);
+        }
+    }
+
+    @Override
+    public synchronized void newsCreated(Integer authorId) {
+        mutationGeneration++;
+        numberOfNews++;
+        numberOfNewsByAuthor.addTo(authorId, 1);
+    }
+
+    @Override
+    public synchronized void newsDeleted(List<Integer> authorIds) {
+        mutationGeneration++;
+        numberOfNews -= authorIds.size();
+        authorIds.stream()
+                .filter(Objects::nonNull)
+                .forEach(authorId -> numberOfNewsByAuthor.addTo(authorId, -1));
+    }
+
+    @Override
+    public void reconcileCounters() {
+        try {
+            long generation;
+            synchronized (this) {
+                generation = mutationGeneration;
+            }
+            List<NewsAuthorCountProjection> authorCounts = newsRepository.countGroupByAuthor();
+            IntIntHashMap reconciledNumberOfNewsByAuthor = new IntIntHashMap(authorCounts.size());
+            long reconciledNumberOfNews = 0;
+            for (NewsAuthorCountProjection authorCount : authorCounts) {
+                if (authorCount.getAuthorId() != null) {
+                    reconciledNumberOfNewsByAuthor.addTo(authorCount.getAuthorId(), authorCount.getNumberOfNews().intValue());
+                }
+                reconciledNumberOfNews += authorCount.getNumberOfNews();
+            }
+            synchronized (this) {
+                if (generation != mutationGeneration) {
+                    return;
+                }
+                numberOfNewsByAuthor = reconciledNumberOfNewsByAuthor;
+                numberOfNews = reconciledNumberOfNews;
+                authorIds.clear();
+                authorCounts.stream()
+                        .filter(authorCount -> authorCount.getAuthorId() != null)
+                        .forEach(authorCount -> authorIds.put(authorCount.getUsername(), authorCount.getAuthorId()));
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @PreDestroy
+    public void closeCounters() {
+        reconcileCountersTask.cancel(false);
+    }
+
+}
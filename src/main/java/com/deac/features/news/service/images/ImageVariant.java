@@ -0,0 +1,18 @@
+package com.deac.features.news.service.images;
+
+public enum ImageVariant {
+
+    THUMBNAIL(320),
+    PREVIEW(960);
+
+    private final int width;
+
+    ImageVariant(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+}
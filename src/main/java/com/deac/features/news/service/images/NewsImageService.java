@@ -0,0 +1,16 @@
+package com.deac.features.news.service.images;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public interface NewsImageService {
+
+    String storeImage(MultipartFile file);
+
+    String getVariantUrl(String imageUrl, ImageVariant variant);
+
+    void serveImage(String filename, HttpServletRequest request, HttpServletResponse response);
+
+}
@@ -0,0 +1,247 @@
+package com.deac.features.news.service.images.impl;
+
+import com.deac.exception.MyException;
+import com.deac.features.news.service.images.ImageVariant;
+import com.deac.features.news.service.images.NewsImageService;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stores uploaded images under the SHA-256 of their content, so the same image is kept only once, and renders
+ * fixed-width variants of every stored image in the background.
+ */
+@Service
+public class NewsImageServiceImpl implements NewsImageService {
+
+    private static final Set<String> allowedExtensions = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    private static final Pattern storedImageName = Pattern.compile("[0-9a-f]{64}\\.[a-z]+");
+
+    private static final Pattern contentAddressedName = Pattern.compile("[0-9a-f]{64}(-[0-9]+)?\\.[a-z]+");
+
+    private static final Pattern servableName = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    private static final Pattern singleByteRange = Pattern.compile("bytes=([0-9]{0,18})-([0-9]{0,18})");
+
+    private final Path imageUploadBaseDirectory;
+
+    private final String imageUploadBaseUrl;
+
+    private final Executor imageExecutor;
+
+    @Autowired
+    public NewsImageServiceImpl(Executor imageExecutor, Environment environment) {
+        this.imageExecutor = imageExecutor;
+        imageUploadBaseDirectory = Paths.get(Objects.requireNonNull(environment.getProperty("files.upload.rootdir", String.class)));
+        imageUploadBaseUrl = Objects.requireNonNull(environment.getProperty("files.upload.baseurl", String.class));
+        try {
+            Files.createDirectories(imageUploadBaseDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String storeImage(MultipartFile file) {
+        if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
+            throw new MyException("Not an image file", HttpStatus.BAD_REQUEST);
+        }
+        String extension = FilenameUtils.getExtension(file.getOriginalFilename()).toLowerCase();
+        if (!allowedExtensions.contains(extension)) {
+            throw new MyException("Unsupported image format", HttpStatus.BAD_REQUEST);
+        }
+        Path temporaryPath = null;
+        try {
+            temporaryPath = Files.createTempFile(imageUploadBaseDirectory, "upload-", ".tmp");
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(inputStream, temporaryPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String filename = Hex.encodeHexString(digest.digest()) + "." + extension;
+            Path targetPath = imageUploadBaseDirectory.resolve(filename);
+            // Same content was uploaded before, keep the stored copy. The check is needed because an atomic move is a
+            // rename, which silently replaces an existing target on POSIX systems
+            if (!Files.exists(targetPath)) {
+                try {
+                    Files.move(temporaryPath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+                    temporaryPath = null;
+                } catch (FileAlreadyExistsException e) {
+                    // Stored by a concurrent upload of the same content
+                }
+            }
+            imageExecutor.execute(() -> generateVariants(targetPath));
+            return filename;
+        } catch (IOException e) {
+            throw new MyException("Image upload failed", HttpStatus.INTERNAL_SERVER_ERROR);
+        } finally {
+            if (temporaryPath != null) {
+                try {
+                    Files.deleteIfExists(temporaryPath);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getVariantUrl(String imageUrl, ImageVariant variant) {
+        if (imageUrl == null || !imageUrl.startsWith(imageUploadBaseUrl)) {
+            return imageUrl;
+        }
+        String filename = imageUrl.substring(imageUploadBaseUrl.length());
+        if (!storedImageName.matcher(filename).matches()) {
+            return imageUrl;
+        }
+        String variantFilename = getVariantFilename(filename, variant);
+        if (!Files.exists(imageUploadBaseDirectory.resolve(variantFilename))) {
+            return imageUrl;
+        }
+        return imageUploadBaseUrl + variantFilename;
+    }
+
+    @Override
+    public void serveImage(String filename, HttpServletRequest request, HttpServletResponse response) {
+        // Only finished images are served, never the temporary files of uploads and variants in progress
+        if (!servableName.matcher(filename).matches() || !allowedExtensions.contains(FilenameUtils.getExtension(filename).toLowerCase())) {
+            throw new MyException("Image does not exist", HttpStatus.NOT_FOUND);
+        }
+        Path imagePath = imageUploadBaseDirectory.resolve(filename);
+        try (FileChannel fileChannel = FileChannel.open(imagePath, StandardOpenOption.READ)) {
+            long length = fileChannel.size();
+            long lastModified = Files.getLastModifiedTime(imagePath).toMillis();
+            boolean immutable = contentAddressedName.matcher(filename).matches();
+            String eTag = immutable ? "\"" + FilenameUtils.getBaseName(filename) + "\"" : "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+            response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? "public, max-age=31536000, immutable" : "public, max-age=86400");
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+                return;
+            }
+            String contentType = request.getServletContext().getMimeType(filename);
+            response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            long start = 0;
+            long end = length - 1;
+            String range = request.getHeader(HttpHeaders.RANGE);
+            String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+            if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+                Matcher rangeMatcher = singleByteRange.matcher(range);
+                if (rangeMatcher.matches() && !(rangeMatcher.group(1).isEmpty() && rangeMatcher.group(2).isEmpty())) {
+                    if (rangeMatcher.group(1).isEmpty()) {
+                        start = Math.max(0, length - Long.parseLong(rangeMatcher.group(2)));
+                    } else {
+                        start = Long.parseLong(rangeMatcher.group(1));
+                        if (!rangeMatcher.group(2).isEmpty()) {
+                            end = Math.min(end, Long.parseLong(rangeMatcher.group(2)));
+                        }
+                    }
+                    if (start > end) {
+                        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                        return;
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+            response.setContentLengthLong(end - start + 1);
+            if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+                request.setAttribute("org.apache.tomcat.sendfile.filename", imagePath.toAbsolutePath().toString());
+                request.setAttribute("org.apache.tomcat.sendfile.start", start);
+                request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+                return;
+            }
+            // Without Tomcat sendfile (NIO connector with useSendfile) this is a plain buffered copy:
+            // the servlet stream is not a file descriptor, so transferTo reads through a heap buffer.
+            WritableByteChannel outputChannel = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += fileChannel.transferTo(position, end - position + 1, outputChannel);
+            }
+        } catch (NoSuchFileException e) {
+            throw new MyException("Image does not exist", HttpStatus.NOT_FOUND);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void generateVariants(Path imagePath) {
+        try {
+            BufferedImage image = null;
+            for (ImageVariant variant : ImageVariant.values()) {
+                Path variantPath = imageUploadBaseDirectory.resolve(getVariantFilename(imagePath.getFileName().toString(), variant));
+                if (Files.exists(variantPath)) {
+                    continue;
+                }
+                if (image == null) {
+                    image = ImageIO.read(imagePath.toFile());
+                    if (image == null) {
+                        return;
+                    }
+                }
+                writeVariant(image, variant.getWidth(), variantPath);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeVariant(BufferedImage image, int maxWidth, Path variantPath) throws IOException {
+        String format = FilenameUtils.getExtension(variantPath.toString());
+        int width = Math.min(maxWidth, image.getWidth());
+        int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        BufferedImage variant = new BufferedImage(width, height, format.equals("jpg") ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = variant.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, format.equals("jpg") ? Color.WHITE : null, null);
+        } finally {
+            graphics.dispose();
+        }
+        Path temporaryPath = Files.createTempFile(variantPath.getParent(), "variant-", ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temporaryPath)) {
+                ImageIO.write(variant, format, outputStream);
+            }
+            Files.move(temporaryPath, variantPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    private static String getVariantFilename(String filename, ImageVariant variant) {
+        String extension = FilenameUtils.getExtension(filename);
+        String variantExtension = extension.equals("jpg") || extension.equals("jpeg") ? "jpg" : "png";
+        return FilenameUtils.getBaseName(filename) + "-" + variant.getWidth() + "." + variantExtension;
+    }
+
+}
@@ -3,22 +3,24 @@ package com.deac.features.news.service.impl;
 import com.deac.features.news.dto.*;
 import com.deac.features.news.persistence.entity.ModifyEntry;
 import com.deac.features.news.persistence.entity.News;
+import com.deac.features.news.persistence.projection.NewsListProjection;
 import com.deac.features.news.persistence.repository.NewsRepository;
 import com.deac.features.news.service.LuceneSearchResult;
 import com.deac.features.news.service.NewsService;
 import com.deac.exception.MyException;
 import com.deac.features.news.service.SearchResult;
+import com.deac.features.news.service.cache.NewsResponseCache;
+import com.deac.features.news.service.counters.NewsCounterService;
+import com.deac.features.news.service.images.ImageVariant;
+import com.deac.features.news.service.images.NewsImageService;
+import com.deac.features.news.service.search.NewsIndexService;
+import com.deac.features.news.service.views.NewsTrendingService;
+import com.deac.features.news.service.views.NewsViewService;
+import com.deac.misc.LruCache;
 import com.deac.user.service.UserService;
-import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.lang3.StringUtils;
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import lombok.Value;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
-import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.*;
-import org.apache.lucene.search.*;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.index.IndexableField;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.data.domain.PageRequest;
@@ -26,98 +28,79 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
-import static com.deac.misc.RandomStringHelper.generateRandomString;
 import static com.deac.misc.StringSearchHelper.normalizeSearchTerm;
 
 @Service
 public class NewsServiceImpl implements NewsService {
 
+    private static final Sort latestFirst = Sort.by("createDate").descending()
+            .and(Sort.by("id").descending());
+
+    private static final Sort mostPopularFirst = Sort.by("numberOfUniqueViewers").descending()
+            .and(Sort.by("numberOfViews").descending())
+            .and(Sort.by("createDate").descending());
+
     private final NewsRepository newsRepository;
 
     private final UserService userService;
 
-    private final String imageUploadBaseDirectory;
+    private final NewsIndexService newsIndexService;
+
+    private final NewsViewService newsViewService;
+
+    private final NewsTrendingService newsTrendingService;
+
+    private final NewsResponseCache newsResponseCache;
+
+    private final NewsImageService newsImageService;
+
+    private final NewsCounterService newsCounterService;
 
     private final String imageUploadBaseUrl;
 
-    private Directory index;
+    private final LruCache<SearchCacheKey, SearchResult> searchResultCache;
+
+    private long searchResultCacheGeneration = -1;
 
-    private IndexWriter writer;
+    private final long baseNewsVersion = System.currentTimeMillis();
+
+    private final AtomicLong newsVersion = new AtomicLong(baseNewsVersion);
+
+    private final Map<Integer, Long> articleVersions = new ConcurrentHashMap<>();
 
     @Autowired
-    public NewsServiceImpl(NewsRepository newsRepository, UserService userService, Environment environment) {
+    public NewsServiceImpl(NewsRepository newsRepository, UserService userService, NewsIndexService newsIndexService, NewsViewService newsViewService, NewsTrendingService newsTrendingService, NewsResponseCache newsResponseCache, NewsImageService newsImageService, NewsCounterService newsCounterService, Environment environment) {
         this.newsRepository = newsRepository;
         this.userService = userService;
-        imageUploadBaseDirectory = Objects.requireNonNull(environment.getProperty("files.upload.rootdir", String.class));
+        this.newsIndexService = newsIndexService;
+        this.newsViewService = newsViewService;
+        this.newsTrendingService = newsTrendingService;
+        this.newsResponseCache = newsResponseCache;
+        this.newsImageService = newsImageService;
+        this.newsCounterService = newsCounterService;
         imageUploadBaseUrl = Objects.requireNonNull(environment.getProperty("files.upload.baseurl", String.class));
-        String searchIndexPath = Objects.requireNonNull(environment.getProperty("search.index.rootdir", String.class));
-        File baseDirectory = new File(imageUploadBaseDirectory);
-        if (!baseDirectory.exists()) {
-            try {
-                Files.createDirectories(Paths.get(imageUploadBaseDirectory));
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        }
-        setupSearchIndexing(searchIndexPath);
+        searchResultCache = new LruCache<>(environment.getProperty("search.cache.size", Integer.class, 1000));
     }
 
-    private void setupSearchIndexing(String searchIndexPath) {
-        try {
-        index = new MMapDirectory(Path.of(searchIndexPath));
-        StandardAnalyzer analyzer = new StandardAnalyzer();
-        IndexWriterConfig config = new IndexWriterConfig(analyzer);
-        writer = new IndexWriter(index, config);
-        writer.deleteAll();
-        writer.commit();
-        newsRepository.findAll()
-                .forEach(news -> {
-                    Document document = new Document();
-                    document.add(new TextField("normalizedTitle", StringUtils.join(normalizeSearchTerm(news.getTitle()), " "), Field.Store.YES));
-                    document.add(new TextField("id", news.getId().toString(), Field.Store.YES));
-                    try {
-                        writer.addDocument(document);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                });
-        writer.commit();
-    } catch (IOException e) {
-        e.printStackTrace();
+    @PostConstruct
+    public void backfillLastModified() {
+        if (newsRepository.existsByLastModifiedDateIsNullAndModifyEntriesIsNotEmpty()) {
+            newsRepository.backfillLastModified();
         }
     }
 
     @Override
     public String uploadImage(MultipartFile file) {
-        try {
-            if (!Objects.requireNonNull(file.getContentType()).startsWith("image/")) {
-                throw new MyException("Not an image file", HttpStatus.BAD_REQUEST);
-            }
-            byte[] fileBytes = file.getBytes();
-            String originalFilename = file.getOriginalFilename();
-            String randomizedFilename = FilenameUtils.getBaseName(originalFilename)
-                    + "-"
-                    + generateRandomString(10)
-                    + "."
-                    + FilenameUtils.getExtension(originalFilename);
-            Path targetPath = Paths.get(imageUploadBaseDirectory + randomizedFilename);
-            return Files.write(targetPath, fileBytes).getFileName().toString();
-        } catch (IOException e) {
-            throw new MyException("Image upload failed", HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        return newsImageService.storeImage(file);
     }
 
     @Override
@@ -129,17 +112,23 @@ public class NewsServiceImpl implements NewsService {
         }
         News news = new News(title, description, content, indexImageUrl, userService.getCurrentUser(), new Date());
         newsRepository.save(news);
-        updateSearchIndices(news, "create", null);
+        newsCounterService.newsCreated(news.getAuthor().getId());
+        markNewsChanged(List.of(news.getId()));
+        newsIndexService.addToIndex(news);
         return news.getId();
     }
 
     @Override
     public String deleteNews(Integer newsId) {
-        if (!newsRepository.existsById(newsId)) {
+        List<Integer> authorIds = newsRepository.findAuthorIdsByIdIn(List.of(newsId));
+        if (authorIds.isEmpty()) {
             throw new MyException("News does not exist", HttpStatus.BAD_REQUEST);
         }
         newsRepository.deleteById(newsId);
-        updateSearchIndices(null, "delete", List.of(newsId));
+        newsCounterService.newsDeleted(authorIds);
+        markNewsChanged(List.of(newsId));
+        newsIndexService.removeFromIndex(List.of(newsId));
+        newsViewService.removeViews(List.of(newsId));
         return "Successfully deleted news";
     }
 
@@ -148,17 +137,21 @@ public class NewsServiceImpl implements NewsService {
         if (newsIds.isEmpty()) {
             return "Successfully deleted news";
         }
-        if (newsRepository.findExistingMatchingNewsCount(newsIds) != newsIds.size()) {
+        List<Integer> authorIds = newsRepository.findAuthorIdsByIdIn(newsIds);
+        if (authorIds.size() != newsIds.size()) {
             throw new MyException("One or more news do not exist", HttpStatus.BAD_REQUEST);
         }
         newsRepository.deleteInBatchByIds(newsIds);
-        updateSearchIndices(null, "delete", newsIds);
+        newsCounterService.newsDeleted(authorIds);
+        markNewsChanged(newsIds);
+        newsIndexService.removeFromIndex(newsIds);
+        newsViewService.removeViews(newsIds);
         return "Successfully deleted news";
     }
 
     @Override
     public String updateNews(ModifyDto modifyDto) {
-        Optional<News> newsOptional = newsRepository.findDistinctById(modifyDto.getNewsId());
+        Optional<News> newsOptional = newsRepository.findWithModifyEntriesById(modifyDto.getNewsId());
         if (newsOptional.isEmpty()) {
             throw new MyException("News does not exist", HttpStatus.BAD_REQUEST);
         }
@@ -177,138 +170,166 @@ public class NewsServiceImpl implements NewsService {
         }
         ModifyEntry modifyEntry = new ModifyEntry(new Date(), userService.getCurrentUser());
         news.getModifyEntries().add(modifyEntry);
+        news.setLastModifiedDate(modifyEntry.getModifyDate());
+        news.setLastModifiedBy(modifyEntry.getModifyAuthor());
         newsRepository.save(news);
-        updateSearchIndices(news, "update", null);
+        markNewsChanged(List.of(news.getId()));
+        newsIndexService.updateInIndex(news);
         return "Successfully updated news";
     }
 
-    private void updateSearchIndices(News news, String operation, List<Integer> ids) {
-        try {
-            if ("create".equals(operation)) {
-                Document document = new Document();
-                document.add(new TextField("normalizedTitle", StringUtils.join(normalizeSearchTerm(news.getTitle()), " "), Field.Store.YES));
-                document.add(new TextField("id", news.getId().toString(), Field.Store.YES));
-                writer.addDocument(document);
-                writer.commit();
-            } else if ("update".equals(operation)) {
-                Document document = new Document();
-                document.add(new TextField("normalizedTitle", StringUtils.join(normalizeSearchTerm(news.getTitle()), " "), Field.Store.YES));
-                document.add(new TextField("id", news.getId().toString(), Field.Store.YES));
-                writer.updateDocument(new Term("id", news.getId().toString()), document);
-                writer.commit();
-            } else if ("delete".equals(operation)) {
-                Term[] terms = ids.stream()
-                        .map(id -> new Term("id", id.toString()))
-                        .toArray(Term[]::new);
-                writer.deleteDocuments(terms);
-                writer.commit();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private void markNewsChanged(List<Integer> newsIds) {
+        long version = newsVersion.incrementAndGet();
+        newsIds.forEach(newsId -> articleVersions.put(newsId, version));
+        newsResponseCache.evictAll();
+    }
+
+    @Override
+    public String rebuildSearchIndex() {
+        return newsIndexService.rebuildIndex();
+    }
+
+    @Override
+    public SearchIndexRebuildStatusDto getSearchIndexRebuildStatus() {
+        return newsIndexService.getRebuildStatus();
     }
 
     @Override
     public List<NewsInfoDto> listNews(int pageNumber, int pageSize) {
         Pageable sortedByCreateDateDesc = PageRequest.of(pageNumber - 1, pageSize, Sort.by("createDate").descending());
-        List<News> newsList = newsRepository.findBy(sortedByCreateDateDesc);
-        if (!newsList.isEmpty()) {
-            newsList = newsRepository.findDistinctByIdInOrderByCreateDateDesc(newsList.stream().map(News::getId).collect(Collectors.toList()));
+        return newsListToNewsInfoDtoList(newsRepository.findListEntriesBy(sortedByCreateDateDesc), ImageVariant.THUMBNAIL);
+    }
+
+    @Override
+    public NewsPageDto listNewsAfterCursor(String cursor, int pageSize) {
+        List<NewsListProjection> newsList;
+        if (cursor == null || cursor.isEmpty()) {
+            newsList = newsRepository.findListEntriesBy(PageRequest.of(0, pageSize, latestFirst));
+        } else {
+            NewsCursor newsCursor = decodeCursor(cursor);
+            newsList = newsRepository.findListEntriesByCreateDateAndIdBefore(newsCursor.getCreateDate(), newsCursor.getId(), PageRequest.of(0, pageSize));
         }
-        return newsListToNewsInfoDtoList(newsList);
+        return newsListToNewsPageDto(newsList, pageSize);
     }
 
     @Override
     public List<NewsInfoDto> getLatestNews(int pageSize) {
         Pageable sortedByCreateDateDesc = PageRequest.of(0, pageSize, Sort.by("createDate").descending());
-        List<News> newsList = newsRepository.findBy(sortedByCreateDateDesc);
-        if (!newsList.isEmpty()) {
-            newsList = newsRepository.findDistinctByIdInOrderByCreateDateDesc(newsList.stream().map(News::getId).collect(Collectors.toList()));
-        }
-        return newsListToNewsInfoDtoList(newsList);
+        return newsListToNewsInfoDtoList(newsRepository.findListEntriesBy(sortedByCreateDateDesc), ImageVariant.THUMBNAIL);
     }
 
     @Override
     public List<NewsInfoDto> getLatestNewsWithExcluded(int pageSize, int excludedId) {
         Pageable sortedByCreateDateDesc = PageRequest.of(0, pageSize, Sort.by("createDate").descending());
-        List<News> newsList = newsRepository.findByIdNot(excludedId, sortedByCreateDateDesc);
-        if (!newsList.isEmpty()) {
-            newsList = newsRepository.findDistinctByIdInOrderByCreateDateDesc(newsList.stream().map(News::getId).collect(Collectors.toList()));
+        return newsListToNewsInfoDtoList(newsRepository.findListEntriesByIdNot(excludedId, sortedByCreateDateDesc), ImageVariant.THUMBNAIL);
+    }
+
+    @Override
+    public List<NewsInfoDto> getRelatedNews(String author, int pageSize, int excludedId) {
+        List<Integer> newsIds = new ArrayList<>(newsIndexService.findRelatedNews(excludedId, author, pageSize));
+        if (newsIds.size() < pageSize) {
+            for (Integer newsId : newsTrendingService.getTrendingNewsIds(pageSize + 1)) {
+                if (newsIds.size() < pageSize && newsId != excludedId && !newsIds.contains(newsId)) {
+                    newsIds.add(newsId);
+                }
+            }
         }
-        return newsListToNewsInfoDtoList(newsList);
+        return newsListToNewsInfoDtoList(loadNewsListEntriesByIds(newsIds), ImageVariant.THUMBNAIL);
     }
 
     @Override
-    public List<NewsInfoDto> getMostPopularNewsByAuthorWithExcluded(String author, int pageSize, int excludedId) {
-        Pageable sortedByCreateDateDesc = PageRequest.of(0, pageSize, Sort.by("numberOfViews").descending().and(Sort.by("createDate").descending()));
+    public List<NewsInfoDto> listNewsByAuthor(String author, int pageNumber, int pageSize) {
+        Pageable sortedByCreateDateDesc = PageRequest.of(pageNumber - 1, pageSize, Sort.by("createDate").descending());
         Integer userId = userService.getUserByUsername(author).getId();
-        List<News> newsList = newsRepository.findByAuthorIdAndIdNot(userId, excludedId, sortedByCreateDateDesc);
-        if (newsList.size() < pageSize) {
-            newsList.addAll(getMostPopularNewsByAuthorNotWithExcluded(userId, pageSize - newsList.size(), excludedId));
+        return newsListToNewsInfoDtoList(newsRepository.findListEntriesByAuthorId(userId, sortedByCreateDateDesc), ImageVariant.THUMBNAIL);
+    }
+
+    @Override
+    public NewsPageDto listNewsByAuthorAfterCursor(String author, String cursor, int pageSize) {
+        Integer userId = userService.getUserByUsername(author).getId();
+        List<NewsListProjection> newsList;
+        if (cursor == null || cursor.isEmpty()) {
+            newsList = newsRepository.findListEntriesByAuthorId(userId, PageRequest.of(0, pageSize, latestFirst));
+        } else {
+            NewsCursor newsCursor = decodeCursor(cursor);
+            newsList = newsRepository.findListEntriesByAuthorIdAndCreateDateAndIdBefore(userId, newsCursor.getCreateDate(), newsCursor.getId(), PageRequest.of(0, pageSize));
         }
-        if (!newsList.isEmpty()) {
-            newsList = newsRepository.findDistinctByIdInOrderByNumberOfViewsDescCreateDateDesc(newsList.stream().map(News::getId).collect(Collectors.toList()));
+        return newsListToNewsPageDto(newsList, pageSize);
+    }
+
+    private NewsPageDto newsListToNewsPageDto(List<NewsListProjection> newsList, int pageSize) {
+        String nextCursor = null;
+        if (!newsList.isEmpty() && newsList.size() >= pageSize) {
+            NewsListProjection last = newsList.get(newsList.size() - 1);
+            nextCursor = encodeCursor(new NewsCursor(last.getCreateDate(), last.getId()));
         }
-        return newsListToNewsInfoDtoList(newsList);
+        return new NewsPageDto(newsListToNewsInfoDtoList(newsList, ImageVariant.THUMBNAIL), nextCursor);
     }
 
-    private List<News> getMostPopularNewsByAuthorNotWithExcluded(Integer authorId, int pageSize, int excludedId) {
-        Pageable sortedByCreateDateDesc = PageRequest.of(0, pageSize, Sort.by("numberOfViews").descending().and(Sort.by("createDate").descending()));
-        return newsRepository.findByAuthorIdNotAndIdNot(authorId, excludedId, sortedByCreateDateDesc);
+    private static String encodeCursor(NewsCursor newsCursor) {
+        String value = newsCursor.getCreateDate().getTime() + ":" + newsCursor.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
     }
 
-    @Override
-    public List<NewsInfoDto> listNewsByAuthor(String author, int pageNumber, int pageSize) {
-        Pageable sortedByCreateDateDesc = PageRequest.of(pageNumber - 1, pageSize, Sort.by("createDate").descending());
-        Integer userId = userService.getUserByUsername(author).getId();
-        List<News> newsList = newsRepository.findByAuthorId(userId, sortedByCreateDateDesc);
-        if (!newsList.isEmpty()) {
-            newsList = newsRepository.findDistinctByIdInOrderByCreateDateDesc(newsList.stream().map(News::getId).collect(Collectors.toList()));
+    private static NewsCursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2) {
+                throw new MyException("Invalid cursor", HttpStatus.BAD_REQUEST);
+            }
+            return new NewsCursor(new Date(Long.parseLong(parts[0])), Integer.parseInt(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new MyException("Invalid cursor", HttpStatus.BAD_REQUEST);
         }
-        return newsListToNewsInfoDtoList(newsList);
     }
 
     @Override
     public List<NewsInfoDto> getLatestMostPopularNews(int pageSize) {
-        Pageable sortedByCreateDateDesc = PageRequest.of(0, pageSize, Sort.by("numberOfViews").descending().and(Sort.by("createDate").descending()));
-        Date lastMonth = Date.from(LocalDateTime.now().minusMonths(1).atZone(ZoneId.systemDefault()).toInstant());
-        List<News> newsList = newsRepository.findByCreateDateAfter(lastMonth, sortedByCreateDateDesc);
+        List<Integer> newsIds = newsTrendingService.getTrendingNewsIds(pageSize);
+        List<NewsListProjection> newsList = loadNewsListEntriesByIds(newsIds);
         if (newsList.size() < pageSize) {
-            sortedByCreateDateDesc = PageRequest.of(0, pageSize - newsList.size(), Sort.by("numberOfViews").descending().and(Sort.by("createDate").descending()));
-            newsList.addAll(newsRepository.findByCreateDateBefore(lastMonth, sortedByCreateDateDesc));
+            Pageable sortedByPopularity = PageRequest.of(0, pageSize - newsList.size(), mostPopularFirst);
+            newsList.addAll(newsIds.isEmpty() ? newsRepository.findListEntriesBy(sortedByPopularity) : newsRepository.findListEntriesByIdNotIn(newsIds, sortedByPopularity));
         }
-        if (!newsList.isEmpty()) {
-            newsList = newsRepository.findDistinctByIdInOrderByNumberOfViewsDescCreateDateDesc(newsList.stream().map(News::getId).collect(Collectors.toList()));
+        return newsListToNewsInfoDtoList(newsList, ImageVariant.PREVIEW);
+    }
+
+    private List<NewsListProjection> loadNewsListEntriesByIds(List<Integer> newsIds) {
+        if (newsIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, NewsListProjection> newsEntries = new HashMap<>();
+        for (NewsListProjection newsEntry : newsRepository.findListEntriesByIdIn(newsIds)) {
+            newsEntries.putIfAbsent(newsEntry.getId(), newsEntry);
         }
-        return newsListToNewsInfoDtoList(newsList);
+        return newsIds.stream()
+                .map(newsEntries::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
-    private List<NewsInfoDto> newsListToNewsInfoDtoList(List<News> newsList) {
+    private List<NewsInfoDto> newsListToNewsInfoDtoList(List<NewsListProjection> newsList, ImageVariant imageVariant) {
         return newsList
                 .stream()
-                .map(news -> {
-                    ModifyEntry latestModifyEntry = news.getModifyEntries().stream().max(Comparator.comparing(ModifyEntry::getModifyDate)).orElse(null);
-                    return new NewsInfoDto(news.getId(),
-                            news.getTitle(),
-                            news.getDescription(),
-                            null,
-                            news.getIndexImageUrl(),
-                            news.getAuthor().getUsername(),
-                            news.getCreateDate(),
-                            latestModifyEntry != null ? new ModifyInfoDto(latestModifyEntry.getModifyDate(), latestModifyEntry.getModifyAuthor().getUsername()) : null);
-                })
+                .map(news -> new NewsInfoDto(news.getId(),
+                        news.getTitle(),
+                        news.getDescription(),
+                        null,
+                        newsImageService.getVariantUrl(news.getIndexImageUrl(), imageVariant),
+                        news.getAuthor(),
+                        news.getCreateDate(),
+                        news.getLastModifiedDate() != null ? new ModifyInfoDto(news.getLastModifiedDate(), news.getLastModifiedBy()) : null))
                 .collect(Collectors.toList());
     }
 
     @Override
     public long getNumberOfNews() {
-        return newsRepository.count();
+        return newsCounterService.getNumberOfNews();
     }
 
     @Override
     public long getNumberOfNewsByAuthor(String author) {
-        Integer userId = userService.getUserByUsername(author).getId();
-        return newsRepository.countByAuthorId(userId);
+        return newsCounterService.getNumberOfNewsByAuthor(author);
     }
 
     @Override
@@ -318,9 +339,6 @@ public class NewsServiceImpl implements NewsService {
             throw new MyException("News does not exist", HttpStatus.BAD_REQUEST);
         }
         News news = newsOptional.get();
-        news.setNumberOfViews(news.getNumberOfViews() + 1);
-        newsRepository.save(news);
-        ModifyEntry latestModifyEntry = news.getModifyEntries().stream().max(Comparator.comparing(ModifyEntry::getModifyDate)).orElse(null);
         return new NewsInfoDto(news.getId(),
                 news.getTitle(),
                 news.getDescription(),
@@ -328,86 +346,164 @@ public class NewsServiceImpl implements NewsService {
                 news.getIndexImageUrl(),
                 news.getAuthor().getUsername(),
                 news.getCreateDate(),
-                latestModifyEntry != null ? new ModifyInfoDto(latestModifyEntry.getModifyDate(), latestModifyEntry.getModifyAuthor().getUsername()) : null);
+                news.getLastModifiedDate() != null ? new ModifyInfoDto(news.getLastModifiedDate(), news.getLastModifiedBy().getUsername()) : null);
     }
 
     @Override
-    public NewsSearchBarDto getTopSearchResults(String searchTerm, int pageSize) {
-        SearchResult searchResult = doSearch(searchTerm, 0, pageSize);
-        List<Integer> searchIds = searchResult.getResults();
-        List<NewsSearchBarItemDto> results = newsRepository.findAllById(searchIds).stream()
-                .map(news -> new NewsSearchBarItemDto(news.getId(),
-                        news.getTitle(),
-                        news.getIndexImageUrl()))
-                .sorted(Comparator.comparing(item -> searchIds.indexOf(item.getId())))
+    public List<ModifyInfoDto> getNewsHistory(Integer id, int pageNumber, int pageSize) {
+        if (!newsRepository.existsById(id)) {
+            throw new MyException("News does not exist", HttpStatus.BAD_REQUEST);
+        }
+        return newsRepository.findModifyEntriesByNewsId(id, PageRequest.of(pageNumber - 1, pageSize))
+                .stream()
+                .map(modifyEntry -> new ModifyInfoDto(modifyEntry.getModifyDate(), modifyEntry.getModifyAuthor()))
                 .collect(Collectors.toList());
-        return new NewsSearchBarDto(results, searchResult.getNumberOfResults());
     }
 
     @Override
-    @Transactional
-    public NewsSearchListDto searchNews(String searchTerm, int pageNumber, int pageSize) {
-        SearchResult searchResult = doSearch(searchTerm, pageNumber - 1, pageSize);
-        List<Integer> searchIds = searchResult.getResults();
-        List<News> results = new ArrayList<>();
-        if (!searchIds.isEmpty()) {
-            results = newsRepository.findDistinctByIdIn(searchIds);
-            results.sort(Comparator.comparing(item -> searchIds.indexOf(item.getId())));
+    public NewsSearchBarDto getTopSearchResults(String searchTerm, int pageSize) {
+        SearchResult searchResult = doSearch(searchTerm, null, null, 0, pageSize, false);
+        return new NewsSearchBarDto(searchResult.getResults(), searchResult.getNumberOfResults(), searchResult.getCorrectedQuery());
+    }
+
+    @Override
+    public NewsSearchListDto searchNews(String searchTerm, String author, String period, int pageNumber, int pageSize) {
+        if (period != null && !period.matches("\\d{4}-\\d{2}")) {
+            throw new MyException("Invalid period", HttpStatus.BAD_REQUEST);
         }
-        return new NewsSearchListDto(newsListToNewsInfoDtoList(results), searchResult.getNumberOfResults());
+        SearchResult searchResult = doSearch(searchTerm, author, period, pageNumber - 1, pageSize, true);
+        List<Integer> newsIds = searchResult.getResults().stream().map(NewsSearchBarItemDto::getId).collect(Collectors.toList());
+        return new NewsSearchListDto(newsListToNewsInfoDtoList(loadNewsListEntriesByIds(newsIds), ImageVariant.THUMBNAIL),
+                searchResult.getNumberOfResults(),
+                searchResult.getCorrectedQuery(),
+                searchResult.getSnippets(),
+                searchResult.getAuthorFacets(),
+                searchResult.getPeriodFacets());
     }
 
-    private SearchResult doSearch(String searchTerm, int pageNumber, int pageSize) {
+    private SearchResult doSearch(String searchTerm, String author, String period, int pageNumber, int pageSize, boolean withSnippets) {
         if (searchTerm == null) {
-            return new SearchResult(List.of(), 0);
+            return new SearchResult(List.of(), 0, null, Map.of(), List.of(), List.of());
         }
         if (searchTerm.length() < 3) {
-            return new SearchResult(List.of(), 0);
+            return new SearchResult(List.of(), 0, null, Map.of(), List.of(), List.of());
         }
         String[] searchKeywords = normalizeSearchTerm(searchTerm);
         if (searchKeywords.length == 0) {
-            return new SearchResult(List.of(), 0);
+            return new SearchResult(List.of(), 0, null, Map.of(), List.of(), List.of());
+        }
+        SearchCacheKey cacheKey = new SearchCacheKey(List.of(searchKeywords), author, period, pageNumber, pageSize, withSnippets);
+        long searcherGeneration = newsIndexService.getSearcherGeneration();
+        synchronized (searchResultCache) {
+            if (searchResultCacheGeneration != searcherGeneration) {
+                searchResultCache.clear();
+                searchResultCacheGeneration = searcherGeneration;
+            }
         }
-        LuceneSearchResult searchResult = searchIndex(searchKeywords, pageNumber, pageSize);
-        return new SearchResult(
-                searchResult.getResults().stream()
-                        .map(indexableFields -> Integer.valueOf(indexableFields.get("id")))
+        SearchResult cachedSearchResult = searchResultCache.get(cacheKey);
+        if (cachedSearchResult != null) {
+            return cachedSearchResult;
+        }
+        LuceneSearchResult luceneSearchResult = newsIndexService.searchIndex(searchKeywords, author, period, pageNumber, pageSize, withSnippets);
+        List<Document> documents = luceneSearchResult.getResults();
+        Map<Integer, String> snippets = new HashMap<>();
+        if (luceneSearchResult.getSnippets() != null) {
+            for (int i = 0; i < documents.size(); i++) {
+                if (luceneSearchResult.getSnippets().get(i) != null) {
+                    snippets.put(Integer.valueOf(documents.get(i).get("id")), luceneSearchResult.getSnippets().get(i));
+                }
+            }
+        }
+        SearchResult searchResult = new SearchResult(
+                documents.stream()
+                        .map(document -> {
+                            IndexableField createDate = document.getField("createDate");
+                            return new NewsSearchBarItemDto(Integer.valueOf(document.get("id")),
+                                    document.get("title"),
+                                    newsImageService.getVariantUrl(document.get("indexImageUrl"), ImageVariant.THUMBNAIL),
+                                    document.get("author"),
+                                    createDate != null ? new Date(createDate.numericValue().longValue()) : null);
+                        })
                         .collect(Collectors.toList()),
-                searchResult.getNumberOfResults()
+                luceneSearchResult.getNumberOfResults(),
+                luceneSearchResult.getCorrectedQuery(),
+                snippets,
+                luceneSearchResult.getAuthorFacets(),
+                luceneSearchResult.getPeriodFacets()
         );
+        if (!luceneSearchResult.isPartial() && newsIndexService.getSearcherGeneration() == searcherGeneration) {
+            searchResultCache.put(cacheKey, searchResult);
+        }
+        return searchResult;
     }
 
-    private LuceneSearchResult searchIndex(String[] keywords, int pageNumber, int pageSize) {
-        try {
-            BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
-            for (String keyword : keywords) {
-                Query query;
-                if (!StringUtils.isNumeric(keyword)) {
-                    BooleanQuery.Builder builder = new BooleanQuery.Builder()
-                            .add(new FuzzyQuery(new Term("normalizedTitle", keyword), 2, 1), BooleanClause.Occur.SHOULD);
-                    if (keyword.length() >= 3) {
-                        builder.add(new WildcardQuery(new Term("normalizedTitle", keyword + "*")), BooleanClause.Occur.SHOULD);
-                    }
-                    query = builder.build();
-                } else {
-                    query = new TermQuery(new Term("normalizedTitle", keyword));
-                }
-                queryBuilder.add(query, BooleanClause.Occur.MUST);
-            }
-            Query query = queryBuilder.build();
-            IndexReader indexReader = DirectoryReader.open(index);
-            IndexSearcher searcher = new IndexSearcher(indexReader);
-            TopScoreDocCollector collector = TopScoreDocCollector.create(Math.max(1, searcher.count(query)));
-            searcher.search(query, collector);
-            List<Document> documents = new ArrayList<>();
-            TopDocs topDocs = collector.topDocs(pageNumber * pageSize, pageSize);
-            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-                documents.add(searcher.doc(scoreDoc.doc));
-            }
-            return new LuceneSearchResult(documents, topDocs.totalHits);
-        } catch (IOException e) {
-            throw new MyException("Unknown error occurred while searching", HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    @Override
+    public CacheStatisticsDto getSearchCacheStatistics() {
+        return new CacheStatisticsDto(searchResultCache.size(),
+                searchResultCache.getHits(),
+                searchResultCache.getMisses(),
+                searchResultCache.getEvictions());
+    }
+
+    @Override
+    public SearchGuardStatisticsDto getSearchGuardStatistics() {
+        return newsIndexService.getSearchGuardStatistics();
+    }
+
+    @Override
+    public void registerView(Integer id, String clientFingerprint) {
+        newsViewService.registerView(id, clientFingerprint);
+    }
+
+    @Override
+    public String getNewsVersionTag() {
+        return "news-" + newsVersion.get();
+    }
+
+    @Override
+    public String getNewsVersionTag(Integer id) {
+        return "news-" + id + "-" + articleVersions.getOrDefault(id, baseNewsVersion);
+    }
+
+    @Override
+    public String getRelatedVersionTag(int pageSize) {
+        return "related-" + baseNewsVersion + "-" + newsIndexService.getSearcherGeneration() + "-" + Integer.toHexString(newsTrendingService.getTrendingNewsIds(pageSize + 1).hashCode());
+    }
+
+    @Override
+    public String getTrendingVersionTag(int pageSize) {
+        return "trending-" + newsVersion.get() + "-" + Integer.toHexString(newsTrendingService.getTrendingNewsIds(pageSize).hashCode());
+    }
+
+    @Override
+    public String getSearchVersionTag() {
+        return "search-" + baseNewsVersion + "-" + newsIndexService.getSearcherGeneration();
+    }
+
+    @Value
+    private static class SearchCacheKey {
+
+        List<String> keywords;
+
+        String author;
+
+        String period;
+
+        int pageNumber;
+
+        int pageSize;
+
+        boolean withSnippets;
+
+    }
+
+    @Value
+    private static class NewsCursor {
+
+        Date createDate;
+
+        Integer id;
+
     }
 
 }
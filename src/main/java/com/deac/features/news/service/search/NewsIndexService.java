@@ -0,0 +1,30 @@
+package com.deac.features.news.service.search;
+
+import com.deac.features.news.dto.SearchGuardStatisticsDto;
+import com.deac.features.news.dto.SearchIndexRebuildStatusDto;
+import com.deac.features.news.persistence.entity.News;
+import com.deac.features.news.service.LuceneSearchResult;
+
+import java.util.List;
+
+public interface NewsIndexService {
+
+    void addToIndex(News news);
+
+    void updateInIndex(News news);
+
+    void removeFromIndex(List<Integer> ids);
+
+    LuceneSearchResult searchIndex(String[] keywords, String author, String period, int pageNumber, int pageSize, boolean withSnippets);
+
+    List<Integer> findRelatedNews(Integer newsId, String author, int count);
+
+    String rebuildIndex();
+
+    SearchIndexRebuildStatusDto getRebuildStatus();
+
+    SearchGuardStatisticsDto getSearchGuardStatistics();
+
+    long getSearcherGeneration();
+
+}
@@ -0,0 +1,66 @@
+package com.deac.features.news.service.search.impl;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.SimpleCollector;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the values of a sorted doc values field over every matching document. Counts are kept per segment
+ * ordinal and only resolved to strings when the collector moves to the next segment.
+ */
+class FacetCountCollector extends SimpleCollector {
+
+    private final String field;
+
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    private SortedDocValues values;
+
+    private int[] ordinalCounts;
+
+    FacetCountCollector(String field) {
+        this.field = field;
+    }
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+        flushSegmentCounts();
+        values = DocValues.getSorted(context.reader(), field);
+        ordinalCounts = new int[values.getValueCount()];
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        if (values.advanceExact(doc)) {
+            ordinalCounts[values.ordValue()]++;
+        }
+    }
+
+    @Override
+    public boolean needsScores() {
+        return false;
+    }
+
+    Map<String, Integer> getCounts() throws IOException {
+        flushSegmentCounts();
+        return counts;
+    }
+
+    private void flushSegmentCounts() throws IOException {
+        if (ordinalCounts == null) {
+            return;
+        }
+        for (int ordinal = 0; ordinal < ordinalCounts.length; ordinal++) {
+            if (ordinalCounts[ordinal] > 0) {
+                counts.merge(values.lookupOrd(ordinal).utf8ToString(), ordinalCounts[ordinal], Integer::sum);
+            }
+        }
+        ordinalCounts = null;
+    }
+
+}
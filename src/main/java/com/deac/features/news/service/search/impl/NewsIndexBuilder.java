@@ -0,0 +1,115 @@
+package com.deac.features.news.service.search.impl;
+
+import com.deac.features.news.persistence.projection.NewsIndexProjection;
+import com.deac.features.news.persistence.repository.NewsRepository;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Fills an empty index with every article. Rows are read in id order, one page at a time, and every page is turned
+ * into documents and added by a fork-join worker, so analysis runs on several threads while the next page is loaded.
+ */
+class NewsIndexBuilder {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final NewsRepository newsRepository;
+
+    private final Function<NewsIndexProjection, Document> documentBuilder;
+
+    private final int parallelism;
+
+    private final AtomicLong indexedDocuments = new AtomicLong(0);
+
+    private volatile long totalDocuments = 0;
+
+    private volatile long startMillis = 0;
+
+    private volatile long finishMillis = 0;
+
+    NewsIndexBuilder(NewsRepository newsRepository, Function<NewsIndexProjection, Document> documentBuilder, int parallelism) {
+        this.newsRepository = newsRepository;
+        this.documentBuilder = documentBuilder;
+        this.parallelism = parallelism;
+    }
+
+    void build(IndexWriter writer, AtomicInteger maxIndexedNewsId) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore pagesInFlight = new Semaphore(parallelism * 2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        startMillis = System.currentTimeMillis();
+        finishMillis = 0;
+        indexedDocuments.set(0);
+        totalDocuments = newsRepository.count();
+        try {
+            int lastId = 0;
+            List<NewsIndexProjection> page;
+            do {
+                page = newsRepository.findIndexEntriesByIdGreaterThan(lastId, PageRequest.of(0, PAGE_SIZE));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).getId();
+                List<NewsIndexProjection> batch = page;
+                pagesInFlight.acquire();
+                pool.execute(() -> {
+                    try {
+                        List<Document> documents = new ArrayList<>(batch.size());
+                        for (NewsIndexProjection news : batch) {
+                            documents.add(documentBuilder.apply(news));
+                            maxIndexedNewsId.accumulateAndGet(news.getId(), Math::max);
+                        }
+                        writer.addDocuments(documents);
+                        indexedDocuments.addAndGet(batch.size());
+                    } catch (IOException | RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        pagesInFlight.release();
+                    }
+                });
+            } while (page.size() == PAGE_SIZE && failure.get() == null);
+            pagesInFlight.acquire(parallelism * 2);
+            if (failure.get() != null) {
+                throw new IOException(failure.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    void markFinished() {
+        finishMillis = System.currentTimeMillis();
+    }
+
+    long getIndexedDocuments() {
+        return indexedDocuments.get();
+    }
+
+    long getTotalDocuments() {
+        return totalDocuments;
+    }
+
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    long getFinishMillis() {
+        return finishMillis;
+    }
+
+}
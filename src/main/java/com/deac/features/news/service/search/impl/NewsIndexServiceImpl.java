@@ -0,0 +1,845 @@
+package com.deac.features.news.service.search.impl;
+
+import com.deac.exception.MyException;
+import com.deac.features.news.dto.FacetCountDto;
+import com.deac.features.news.dto.SearchGuardStatisticsDto;
+import com.deac.features.news.dto.SearchIndexRebuildStatusDto;
+import com.deac.features.news.persistence.entity.News;
+import com.deac.features.news.persistence.projection.NewsIndexProjection;
+import com.deac.features.news.persistence.repository.NewsRepository;
+import com.deac.features.news.service.LuceneSearchResult;
+import com.deac.features.news.service.search.NewsIndexService;
+import com.deac.misc.HungarianEdgeNGramAnalyzer;
+import com.deac.misc.HungarianFoldingAnalyzer;
+import com.deac.misc.LruCache;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Value;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.queries.mlt.MoreLikeThis;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.spell.DirectSpellChecker;
+import org.apache.lucene.search.spell.SuggestMode;
+import org.apache.lucene.search.spell.SuggestWord;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Service
+public class NewsIndexServiceImpl implements NewsIndexService {
+
+    private static final String SCHEMA_VERSION = "9";
+
+    private static final String SCHEMA_VERSION_KEY = "schemaVersion";
+
+    private static final String MAX_NEWS_ID_KEY = "maxNewsId";
+
+    private static final String CHECKPOINT_KEY = "checkpoint";
+
+    private static final String CURRENT_INDEX_FILE = "current";
+
+    private static final String INDEX_DIRECTORY_PREFIX = "index-";
+
+    private static final long CHECKPOINT_SAFETY_WINDOW_MILLIS = 600000;
+
+    private static final FieldType termVectorTextType = new FieldType(TextField.TYPE_NOT_STORED);
+
+    static {
+        termVectorTextType.setStoreTermVectors(true);
+        termVectorTextType.freeze();
+    }
+
+    private static final FieldType highlightedTextType = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        highlightedTextType.setStoreTermVectors(true);
+        highlightedTextType.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        highlightedTextType.freeze();
+    }
+
+    private static final FieldType contentTextType = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        contentTextType.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        contentTextType.freeze();
+    }
+
+    private static final DateTimeFormatter periodFormatter = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneId.systemDefault());
+
+    private static final Set<String> resultFields = Set.of("id", "title", "indexImageUrl", "author", "createDate");
+
+    private final NewsRepository newsRepository;
+
+    private final ThreadPoolTaskScheduler searchIndexScheduler;
+
+    private final Executor searchIndexRebuildExecutor;
+
+    private final Path searchIndexRootPath;
+
+    private final long commitIntervalMillis;
+
+    private final int commitBatchSize;
+
+    private final int spellCheckThreshold;
+
+    private final int maxSearchKeywords;
+
+    private final DirectSpellChecker spellChecker = new DirectSpellChecker();
+
+    private final long searchTimeoutMillis;
+
+    private final float titleBoost;
+
+    private final float descriptionBoost;
+
+    private final int facetSize;
+
+    private final AtomicLong rejectedSearches = new AtomicLong(0);
+
+    private final AtomicLong timedOutSearches = new AtomicLong(0);
+
+    private final AtomicLong searcherGeneration = new AtomicLong(0);
+
+    private final LruCache<RelatedNewsKey, List<Integer>> relatedNewsCache;
+
+    private long relatedNewsCacheGeneration = -1;
+
+    private final Map<Integer, PendingOperation> pendingOperations = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean(false);
+
+    private volatile boolean rebuildFailed = false;
+
+    private int uncommittedOperations = 0;
+
+    private long lastCommitMillis = System.currentTimeMillis();
+
+    private final Analyzer analyzer = new PerFieldAnalyzerWrapper(new HungarianFoldingAnalyzer(), Map.of("titlePrefix", new HungarianEdgeNGramAnalyzer()));
+
+    private final NewsIndexBuilder indexBuilder;
+
+    private final NewsSnippetHighlighter snippetHighlighter;
+
+    private final ReferenceManager.RefreshListener searcherRefreshListener = new ReferenceManager.RefreshListener() {
+        @Override
+        public void beforeRefresh() {
+        }
+
+        @Override
+        public void afterRefresh(boolean didRefresh) {
+            if (didRefresh) {
+                searcherGeneration.incrementAndGet();
+            }
+        }
+    };
+
+    private volatile SearchIndex searchIndex;
+
+    private ScheduledFuture<?> applyPendingOperationsTask;
+
+    @Autowired
+    public NewsIndexServiceImpl(NewsRepository newsRepository, ThreadPoolTaskScheduler searchIndexScheduler, Executor searchIndexRebuildExecutor, Environment environment) {
+        this.newsRepository = newsRepository;
+        this.searchIndexScheduler = searchIndexScheduler;
+        this.searchIndexRebuildExecutor = searchIndexRebuildExecutor;
+        searchIndexRootPath = Path.of(Objects.requireNonNull(environment.getProperty("search.index.rootdir", String.class)));
+        long applyIntervalMillis = environment.getProperty("search.index.apply.interval", Long.class, 500L);
+        commitIntervalMillis = environment.getProperty("search.index.commit.interval", Long.class, 10000L);
+        commitBatchSize = environment.getProperty("search.index.commit.batchsize", Integer.class, 200);
+        spellCheckThreshold = environment.getProperty("search.spellcheck.threshold", Integer.class, 3);
+        int rebuildParallelism = environment.getProperty("search.index.rebuild.parallelism", Integer.class, Runtime.getRuntime().availableProcessors());
+        indexBuilder = new NewsIndexBuilder(newsRepository, NewsIndexServiceImpl::buildDocument, rebuildParallelism);
+        maxSearchKeywords = environment.getProperty("search.max.keywords", Integer.class, 8);
+        spellChecker.setMinQueryLength(HungarianEdgeNGramAnalyzer.MIN_GRAM);
+        spellChecker.setMaxInspections(environment.getProperty("search.spellcheck.max.inspections", Integer.class, 5));
+        searchTimeoutMillis = environment.getProperty("search.timeout", Long.class, 200L);
+        titleBoost = environment.getProperty("search.boost.title", Float.class, 3.0f);
+        descriptionBoost = environment.getProperty("search.boost.description", Float.class, 1.5f);
+        snippetHighlighter = new NewsSnippetHighlighter(analyzer, environment.getProperty("search.snippet.length", Integer.class, 160));
+        facetSize = environment.getProperty("search.facet.size", Integer.class, 10);
+        relatedNewsCache = new LruCache<>(environment.getProperty("search.related.cache.size", Integer.class, 1000));
+        setupSearchIndexing();
+        applyPendingOperationsTask = searchIndexScheduler.scheduleWithFixedDelay(this::applyPendingOperations, applyIntervalMillis);
+    }
+
+    private void setupSearchIndexing() {
+        try {
+            Files.createDirectories(searchIndexRootPath);
+            SearchIndex currentIndex = null;
+            Path currentIndexPath = readCurrentIndexPath();
+            if (currentIndexPath != null) {
+                currentIndex = openSearchIndex(currentIndexPath);
+                Map<String, String> checkpoint = readCheckpoint(currentIndex);
+                if (SCHEMA_VERSION.equals(checkpoint.get(SCHEMA_VERSION_KEY)) && checkpoint.containsKey(CHECKPOINT_KEY)) {
+                    catchUpIndex(currentIndex, Integer.parseInt(checkpoint.get(MAX_NEWS_ID_KEY)), Long.parseLong(checkpoint.get(CHECKPOINT_KEY)));
+                } else {
+                    closeSearchIndex(currentIndex);
+                    currentIndex = null;
+                }
+            }
+            if (currentIndex == null) {
+                currentIndex = buildSearchIndex();
+                writeCurrentIndexPath(currentIndex.path);
+            }
+            activateSearchIndex(currentIndex);
+            deleteInactiveIndexes();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path readCurrentIndexPath() throws IOException {
+        Path currentIndexFile = searchIndexRootPath.resolve(CURRENT_INDEX_FILE);
+        if (!Files.exists(currentIndexFile)) {
+            return null;
+        }
+        Path currentIndexPath = searchIndexRootPath.resolve(Files.readString(currentIndexFile).trim());
+        return Files.isDirectory(currentIndexPath) ? currentIndexPath : null;
+    }
+
+    private void writeCurrentIndexPath(Path indexPath) throws IOException {
+        Path temporaryFile = searchIndexRootPath.resolve(CURRENT_INDEX_FILE + ".tmp");
+        Files.writeString(temporaryFile, indexPath.getFileName().toString());
+        Files.move(temporaryFile, searchIndexRootPath.resolve(CURRENT_INDEX_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteInactiveIndexes() throws IOException {
+        Path activeIndexPath = searchIndex.path;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(searchIndexRootPath)) {
+            for (Path entry : entries) {
+                if (entry.equals(activeIndexPath) || entry.getFileName().toString().equals(CURRENT_INDEX_FILE)) {
+                    continue;
+                }
+                if (Files.isDirectory(entry)) {
+                    if (entry.getFileName().toString().startsWith(INDEX_DIRECTORY_PREFIX)) {
+                        FileUtils.deleteQuietly(entry.toFile());
+                    }
+                } else if (isLegacyIndexFile(entry.getFileName().toString())) {
+                    // Segment files of the single-directory layout used before versioned index directories
+                    Files.deleteIfExists(entry);
+                }
+            }
+        }
+    }
+
+    private static boolean isLegacyIndexFile(String filename) {
+        return filename.startsWith(IndexFileNames.SEGMENTS)
+                || filename.startsWith(IndexFileNames.PENDING_SEGMENTS)
+                || filename.equals(IndexWriter.WRITE_LOCK_NAME)
+                || IndexFileNames.CODEC_FILE_PATTERN.matcher(filename).matches();
+    }
+
+    private SearchIndex openSearchIndex(Path indexPath) throws IOException {
+        Directory directory = new MMapDirectory(indexPath);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        IndexWriter writer = new IndexWriter(directory, config);
+        SearcherManager searcherManager = new SearcherManager(writer, null);
+        searcherManager.addListener(searcherRefreshListener);
+        return new SearchIndex(indexPath, directory, writer, searcherManager);
+    }
+
+    private void activateSearchIndex(SearchIndex newIndex) throws IOException {
+        newIndex.searcherManager.maybeRefreshBlocking();
+        newIndex.reopenThread = new ControlledRealTimeReopenThread<>(newIndex.writer, newIndex.searcherManager, 1.0, 0.1);
+        newIndex.reopenThread.setName("search-index-reopen-thread");
+        newIndex.reopenThread.setDaemon(true);
+        newIndex.reopenThread.start();
+        searchIndex = newIndex;
+        searcherGeneration.incrementAndGet();
+    }
+
+    private void closeSearchIndex(SearchIndex oldIndex) throws IOException {
+        if (oldIndex.reopenThread != null) {
+            oldIndex.reopenThread.close();
+        }
+        oldIndex.searcherManager.close();
+        oldIndex.writer.close();
+        oldIndex.directory.close();
+    }
+
+    private void discardSearchIndex(SearchIndex oldIndex) {
+        try {
+            closeSearchIndex(oldIndex);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+        FileUtils.deleteQuietly(oldIndex.path.toFile());
+    }
+
+    private Map<String, String> readCheckpoint(SearchIndex index) {
+        Map<String, String> checkpoint = new HashMap<>();
+        Iterable<Map.Entry<String, String>> commitData = index.writer.getLiveCommitData();
+        if (commitData != null) {
+            commitData.forEach(entry -> checkpoint.put(entry.getKey(), entry.getValue()));
+        }
+        return checkpoint;
+    }
+
+    private synchronized void commit() throws IOException {
+        commit(searchIndex);
+        uncommittedOperations = 0;
+        lastCommitMillis = System.currentTimeMillis();
+    }
+
+    private void commit(SearchIndex index) throws IOException {
+        index.writer.setLiveCommitData(Map.of(
+                SCHEMA_VERSION_KEY, SCHEMA_VERSION,
+                MAX_NEWS_ID_KEY, String.valueOf(index.maxIndexedNewsId.get()),
+                CHECKPOINT_KEY, String.valueOf(System.currentTimeMillis())
+        ).entrySet());
+        index.writer.commit();
+    }
+
+    private void catchUpIndex(SearchIndex index, int maxNewsId, long checkpoint) throws IOException {
+        index.maxIndexedNewsId.accumulateAndGet(maxNewsId, Math::max);
+        Date since = new Date(checkpoint - CHECKPOINT_SAFETY_WINDOW_MILLIS);
+        for (NewsIndexProjection news : newsRepository.findIndexEntriesChangedSince(maxNewsId, since)) {
+            writeDocument(index, news);
+        }
+        Set<Integer> existingIds = new HashSet<>(newsRepository.findAllIds());
+        Set<Integer> indexedIds = readIndexedIds(index);
+        Term[] staleTerms = indexedIds.stream()
+                .filter(id -> !existingIds.contains(id))
+                .map(this::idTerm)
+                .toArray(Term[]::new);
+        if (staleTerms.length > 0) {
+            index.writer.deleteDocuments(staleTerms);
+        }
+        existingIds.removeAll(indexedIds);
+        if (!existingIds.isEmpty()) {
+            for (NewsIndexProjection news : newsRepository.findIndexEntriesByIdIn(existingIds)) {
+                writeDocument(index, news);
+            }
+        }
+        commit(index);
+    }
+
+    private Set<Integer> readIndexedIds(SearchIndex index) throws IOException {
+        Set<Integer> ids = new HashSet<>();
+        try (DirectoryReader reader = DirectoryReader.open(index.writer)) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                LeafReader leafReader = leaf.reader();
+                Bits liveDocs = leafReader.getLiveDocs();
+                NumericDocValues idValues = DocValues.getNumeric(leafReader, "id");
+                for (int doc = idValues.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = idValues.nextDoc()) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        ids.add((int) idValues.longValue());
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private SearchIndex buildSearchIndex() throws IOException {
+        SearchIndex newIndex = openSearchIndex(searchIndexRootPath.resolve(INDEX_DIRECTORY_PREFIX + System.currentTimeMillis()));
+        try {
+            indexBuilder.build(newIndex.writer, newIndex.maxIndexedNewsId);
+            commit(newIndex);
+            return newIndex;
+        } catch (IOException | RuntimeException e) {
+            discardSearchIndex(newIndex);
+            throw e;
+        }
+    }
+
+    @Override
+    public String rebuildIndex() {
+        if (!rebuildRunning.compareAndSet(false, true)) {
+            throw new MyException("Search index rebuild is already running", HttpStatus.CONFLICT);
+        }
+        rebuildFailed = false;
+        try {
+            searchIndexRebuildExecutor.execute(this::runRebuild);
+        } catch (RuntimeException e) {
+            rebuildRunning.set(false);
+            throw new MyException("Search index rebuild failed", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return "Search index rebuild started";
+    }
+
+    private void runRebuild() {
+        SearchIndex newIndex = null;
+        try {
+            long startMillis = System.currentTimeMillis();
+            newIndex = buildSearchIndex();
+            SearchIndex builtIndex = newIndex;
+            searchIndexScheduler.submit(() -> {
+                swapSearchIndex(builtIndex, startMillis);
+                return null;
+            }).get();
+            newIndex = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rebuildFailed = true;
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            e.printStackTrace();
+            rebuildFailed = true;
+        } finally {
+            if (newIndex != null && newIndex != searchIndex) {
+                discardSearchIndex(newIndex);
+            }
+            indexBuilder.markFinished();
+            rebuildRunning.set(false);
+        }
+    }
+
+    private synchronized void swapSearchIndex(SearchIndex newIndex, long rebuildStartMillis) throws IOException {
+        catchUpIndex(newIndex, newIndex.maxIndexedNewsId.get(), rebuildStartMillis);
+        writeCurrentIndexPath(newIndex.path);
+        SearchIndex oldIndex = searchIndex;
+        activateSearchIndex(newIndex);
+        uncommittedOperations = 0;
+        lastCommitMillis = System.currentTimeMillis();
+        discardSearchIndex(oldIndex);
+    }
+
+    @Override
+    public SearchIndexRebuildStatusDto getRebuildStatus() {
+        long startMillis = indexBuilder.getStartMillis();
+        long finishMillis = indexBuilder.getFinishMillis();
+        long indexedDocuments = indexBuilder.getIndexedDocuments();
+        long elapsedMillis = startMillis == 0 ? 0 : (finishMillis != 0 ? finishMillis : System.currentTimeMillis()) - startMillis;
+        return new SearchIndexRebuildStatusDto(rebuildRunning.get(),
+                rebuildFailed,
+                indexedDocuments,
+                indexBuilder.getTotalDocuments(),
+                elapsedMillis,
+                elapsedMillis > 0 ? indexedDocuments * 1000.0 / elapsedMillis : 0,
+                startMillis != 0 ? new Date(startMillis) : null,
+                finishMillis != 0 ? new Date(finishMillis) : null);
+    }
+
+    @Override
+    public SearchGuardStatisticsDto getSearchGuardStatistics() {
+        return new SearchGuardStatisticsDto(rejectedSearches.get(), timedOutSearches.get());
+    }
+
+    @Override
+    public long getSearcherGeneration() {
+        return searcherGeneration.get();
+    }
+
+    @PreDestroy
+    public void closeSearchIndexing() {
+        try {
+            if (applyPendingOperationsTask != null) {
+                applyPendingOperationsTask.cancel(false);
+                applyPendingOperations();
+            }
+            if (searchIndex != null) {
+                commit();
+                closeSearchIndex(searchIndex);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void addToIndex(News news) {
+        enqueue(news.getId(), PendingOperation.of(news));
+    }
+
+    @Override
+    public void updateInIndex(News news) {
+        enqueue(news.getId(), PendingOperation.of(news));
+    }
+
+    @Override
+    public void removeFromIndex(List<Integer> ids) {
+        ids.forEach(id -> pendingOperations.put(id, PendingOperation.delete(id)));
+        scheduleDrainIfNeeded();
+    }
+
+    private void enqueue(Integer id, PendingOperation operation) {
+        pendingOperations.put(id, operation);
+        scheduleDrainIfNeeded();
+    }
+
+    private void scheduleDrainIfNeeded() {
+        if (pendingOperations.size() >= commitBatchSize && drainScheduled.compareAndSet(false, true)) {
+            searchIndexScheduler.execute(this::applyPendingOperations);
+        }
+    }
+
+    private synchronized void applyPendingOperations() {
+        drainScheduled.set(false);
+        try {
+            SearchIndex index = searchIndex;
+            if (!pendingOperations.isEmpty()) {
+                List<Term> deletedTerms = new ArrayList<>();
+                for (Integer id : pendingOperations.keySet()) {
+                    PendingOperation operation = pendingOperations.remove(id);
+                    if (operation == null) {
+                        continue;
+                    }
+                    if (operation.isDelete()) {
+                        deletedTerms.add(idTerm(id));
+                    } else {
+                        writeDocument(index, operation);
+                    }
+                    uncommittedOperations++;
+                }
+                if (!deletedTerms.isEmpty()) {
+                    index.writer.deleteDocuments(deletedTerms.toArray(Term[]::new));
+                }
+                index.searcherManager.maybeRefresh();
+            }
+            if (uncommittedOperations >= commitBatchSize
+                    || (uncommittedOperations > 0 && System.currentTimeMillis() - lastCommitMillis >= commitIntervalMillis)) {
+                commit();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeDocument(SearchIndex index, NewsIndexProjection news) throws IOException {
+        index.writer.updateDocument(idTerm(news.getId()), buildDocument(news));
+        index.maxIndexedNewsId.accumulateAndGet(news.getId(), Math::max);
+    }
+
+    private static Document buildDocument(NewsIndexProjection news) {
+        Document document = new Document();
+        document.add(new StringField("id", news.getId().toString(), Field.Store.YES));
+        document.add(new NumericDocValuesField("id", news.getId()));
+        document.add(new Field("normalizedTitle", news.getTitle(), termVectorTextType));
+        document.add(new Field("normalizedDescription", news.getDescription(), highlightedTextType));
+        if (news.getContent() != null) {
+            document.add(new Field("normalizedContent", Jsoup.parse(news.getContent()).text(), contentTextType));
+        }
+        document.add(new TextField("titlePrefix", news.getTitle(), Field.Store.NO));
+        document.add(new StoredField("title", news.getTitle()));
+        if (news.getIndexImageUrl() != null) {
+            document.add(new StoredField("indexImageUrl", news.getIndexImageUrl()));
+        }
+        if (news.getAuthor() != null) {
+            document.add(new StringField("author", news.getAuthor(), Field.Store.YES));
+            document.add(new SortedDocValuesField("author", new BytesRef(news.getAuthor())));
+        }
+        document.add(new StoredField("createDate", news.getCreateDate().getTime()));
+        String period = periodFormatter.format(news.getCreateDate().toInstant());
+        document.add(new StringField("period", period, Field.Store.NO));
+        document.add(new SortedDocValuesField("period", new BytesRef(period)));
+        return document;
+    }
+
+    private Term idTerm(Integer id) {
+        return new Term("id", id.toString());
+    }
+
+    private static class SearchIndex {
+
+        private final Path path;
+
+        private final Directory directory;
+
+        private final IndexWriter writer;
+
+        private final SearcherManager searcherManager;
+
+        private final AtomicInteger maxIndexedNewsId = new AtomicInteger(0);
+
+        private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+
+        SearchIndex(Path path, Directory directory, IndexWriter writer, SearcherManager searcherManager) {
+            this.path = path;
+            this.directory = directory;
+            this.writer = writer;
+            this.searcherManager = searcherManager;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface SearcherFunction<T> {
+
+        T apply(IndexSearcher searcher) throws IOException;
+
+    }
+
+    @Value
+    private static class QueryResult {
+
+        Query query;
+
+        TopDocs topDocs;
+
+        LuceneSearchResult searchResult;
+
+    }
+
+    @Value
+    private static class RelatedNewsKey {
+
+        Integer newsId;
+
+        String author;
+
+        int count;
+
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PendingOperation implements NewsIndexProjection {
+
+        private final Integer id;
+
+        private final String title;
+
+        private final String description;
+
+        private final String content;
+
+        private final String indexImageUrl;
+
+        private final String author;
+
+        private final Date createDate;
+
+        private final boolean delete;
+
+        static PendingOperation of(News news) {
+            return new PendingOperation(news.getId(),
+                    news.getTitle(),
+                    news.getDescription(),
+                    news.getContent(),
+                    news.getIndexImageUrl(),
+                    news.getAuthor() != null ? news.getAuthor().getUsername() : null,
+                    news.getCreateDate(),
+                    false);
+        }
+
+        static PendingOperation delete(Integer id) {
+            return new PendingOperation(id, null, null, null, null, null, null, true);
+        }
+
+    }
+
+    @Override
+    public LuceneSearchResult searchIndex(String[] keywords, String author, String period, int pageNumber, int pageSize, boolean withSnippets) {
+        keywords = Arrays.stream(keywords).distinct().toArray(String[]::new);
+        if (keywords.length > maxSearchKeywords) {
+            rejectedSearches.incrementAndGet();
+            throw new MyException("Search term contains too many keywords", HttpStatus.BAD_REQUEST);
+        }
+        String[] searchKeywords = keywords;
+        try {
+            return withSearcher(searcher -> {
+                QueryResult queryResult = runQuery(searcher, buildQuery(searchKeywords, author, period), pageNumber, pageSize);
+                LuceneSearchResult searchResult = queryResult.getSearchResult();
+                if (searchResult.getNumberOfResults() < spellCheckThreshold && !searchResult.isPartial()) {
+                    String[] correctedKeywords = correctKeywords(searcher.getIndexReader(), searchKeywords);
+                    if (!Arrays.equals(searchKeywords, correctedKeywords)) {
+                        QueryResult correctedQueryResult = runQuery(searcher, buildQuery(correctedKeywords, author, period), pageNumber, pageSize);
+                        if (correctedQueryResult.getSearchResult().getNumberOfResults() > searchResult.getNumberOfResults()) {
+                            queryResult = correctedQueryResult;
+                            searchResult = correctedQueryResult.getSearchResult();
+                            searchResult.setCorrectedQuery(String.join(" ", correctedKeywords));
+                        }
+                    }
+                }
+                if (withSnippets) {
+                    searchResult.setSnippets(snippetHighlighter.highlight(searcher, queryResult.getQuery(), queryResult.getTopDocs()));
+                }
+                return searchResult;
+            });
+        } catch (IOException e) {
+            throw new MyException("Unknown error occurred while searching", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    public List<Integer> findRelatedNews(Integer newsId, String author, int count) {
+        RelatedNewsKey cacheKey = new RelatedNewsKey(newsId, author, count);
+        long generation = searcherGeneration.get();
+        synchronized (relatedNewsCache) {
+            if (relatedNewsCacheGeneration != generation) {
+                relatedNewsCache.clear();
+                relatedNewsCacheGeneration = generation;
+            }
+            List<Integer> cachedRelatedNews = relatedNewsCache.get(cacheKey);
+            if (cachedRelatedNews != null) {
+                return cachedRelatedNews;
+            }
+        }
+        List<Integer> relatedNews;
+        try {
+            relatedNews = withSearcher(searcher -> {
+                List<Integer> relatedNewsIds = new ArrayList<>();
+                TopDocs newsDocs = searcher.search(new TermQuery(idTerm(newsId)), 1);
+                BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+                if (newsDocs.scoreDocs.length > 0) {
+                    MoreLikeThis moreLikeThis = new MoreLikeThis(searcher.getIndexReader());
+                    moreLikeThis.setFieldNames(new String[]{"normalizedTitle", "normalizedDescription"});
+                    moreLikeThis.setAnalyzer(analyzer);
+                    moreLikeThis.setMinTermFreq(1);
+                    moreLikeThis.setMinDocFreq(2);
+                    moreLikeThis.setMaxQueryTerms(25);
+                    moreLikeThis.setBoost(true);
+                    queryBuilder.add(moreLikeThis.like(newsDocs.scoreDocs[0].doc), BooleanClause.Occur.SHOULD);
+                }
+                if (author != null) {
+                    queryBuilder.add(new BoostQuery(new TermQuery(new Term("author", author)), 0.1f), BooleanClause.Occur.SHOULD);
+                }
+                queryBuilder.add(new TermQuery(idTerm(newsId)), BooleanClause.Occur.MUST_NOT);
+                for (ScoreDoc scoreDoc : searcher.search(queryBuilder.build(), Math.max(1, count)).scoreDocs) {
+                    relatedNewsIds.add(Integer.valueOf(searcher.doc(scoreDoc.doc, Set.of("id")).get("id")));
+                }
+                return List.copyOf(relatedNewsIds);
+            });
+        } catch (IOException e) {
+            throw new MyException("Unknown error occurred while searching", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        synchronized (relatedNewsCache) {
+            if (relatedNewsCacheGeneration == generation) {
+                relatedNewsCache.put(cacheKey, relatedNews);
+            }
+        }
+        return relatedNews;
+    }
+
+    /**
+     * Runs a search against the active index. A rebuild can swap and close the index between reading the field and
+     * acquiring a searcher, in which case the search is retried against the index that replaced it.
+     */
+    private <T> T withSearcher(SearcherFunction<T> function) throws IOException {
+        while (true) {
+            SearcherManager searcherManager = searchIndex.searcherManager;
+            IndexSearcher searcher;
+            try {
+                searcher = searcherManager.acquire();
+            } catch (AlreadyClosedException e) {
+                if (searchIndex.searcherManager == searcherManager) {
+                    throw e;
+                }
+                continue;
+            }
+            try {
+                return function.apply(searcher);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        }
+    }
+
+    private String[] correctKeywords(IndexReader reader, String[] keywords) throws IOException {
+        String[] correctedKeywords = new String[keywords.length];
+        for (int i = 0; i < keywords.length; i++) {
+            correctedKeywords[i] = keywords[i];
+            if (StringUtils.isNumeric(keywords[i])
+                    || reader.docFreq(new Term("normalizedDescription", keywords[i])) > 0
+                    || reader.docFreq(new Term("normalizedContent", keywords[i])) > 0) {
+                continue;
+            }
+            SuggestWord[] suggestions = spellChecker.suggestSimilar(new Term("normalizedTitle", keywords[i]), 1, reader, SuggestMode.SUGGEST_WHEN_NOT_IN_INDEX);
+            if (suggestions.length > 0) {
+                correctedKeywords[i] = suggestions[0].string;
+            }
+        }
+        return correctedKeywords;
+    }
+
+    private Query buildQuery(String[] keywords, String author, String period) {
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder();
+        for (String keyword : keywords) {
+            BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term("normalizedTitle", keyword)), titleBoost), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new TermQuery(new Term("normalizedDescription", keyword)), descriptionBoost), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term("normalizedContent", keyword)), BooleanClause.Occur.SHOULD);
+            if (!StringUtils.isNumeric(keyword) && keyword.length() >= HungarianEdgeNGramAnalyzer.MIN_GRAM) {
+                String prefix = keyword.substring(0, Math.min(keyword.length(), HungarianEdgeNGramAnalyzer.MAX_GRAM));
+                builder.add(new BoostQuery(new TermQuery(new Term("titlePrefix", prefix)), titleBoost), BooleanClause.Occur.SHOULD);
+            }
+            queryBuilder.add(builder.build(), BooleanClause.Occur.MUST);
+        }
+        if (author != null) {
+            queryBuilder.add(new TermQuery(new Term("author", author)), BooleanClause.Occur.FILTER);
+        }
+        if (period != null) {
+            queryBuilder.add(new TermQuery(new Term("period", period)), BooleanClause.Occur.FILTER);
+        }
+        return queryBuilder.build();
+    }
+
+    private QueryResult runQuery(IndexSearcher searcher, Query query, int pageNumber, int pageSize) throws IOException {
+        int maxDoc = searcher.getIndexReader().maxDoc();
+        int size = Math.min(maxDoc, Math.max(0, pageSize));
+        int offset = (int) Math.min(maxDoc, (long) Math.max(0, pageNumber) * size);
+        TopScoreDocCollector collector = TopScoreDocCollector.create(Math.max(1, Math.min(maxDoc, offset + size)));
+        FacetCountCollector authorFacets = new FacetCountCollector("author");
+        FacetCountCollector periodFacets = new FacetCountCollector("period");
+        boolean partial = false;
+        try {
+            Collector collectors = MultiCollector.wrap(collector, authorFacets, periodFacets);
+            searcher.search(query, new TimeLimitingCollector(collectors, TimeLimitingCollector.getGlobalCounter(), searchTimeoutMillis));
+        } catch (TimeLimitingCollector.TimeExceededException e) {
+            timedOutSearches.incrementAndGet();
+            partial = true;
+        }
+        List<Document> documents = new ArrayList<>();
+        TopDocs topDocs = collector.topDocs(offset, size);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            documents.add(searcher.doc(scoreDoc.doc, resultFields));
+        }
+        return new QueryResult(query, topDocs, new LuceneSearchResult(documents,
+                null,
+                topDocs.totalHits,
+                partial,
+                null,
+                topFacets(authorFacets.getCounts(), Comparator.comparing(FacetCountDto::getCount).reversed().thenComparing(FacetCountDto::getValue)),
+                topFacets(periodFacets.getCounts(), Comparator.comparing(FacetCountDto::getValue).reversed())));
+    }
+
+    private List<FacetCountDto> topFacets(Map<String, Integer> counts, Comparator<FacetCountDto> order) {
+        return counts.entrySet().stream()
+                .map(entry -> new FacetCountDto(entry.getKey(), entry.getValue()))
+                .sorted(order)
+                .limit(facetSize)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.deac.features.news.service.search.impl;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.LengthGoalBreakIterator;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds one snippet per hit from the stored, HTML-free text, using the offsets recorded in the postings, so
+ * article bodies are never loaded from the database at query time. Content passages are preferred over the
+ * description.
+ */
+class NewsSnippetHighlighter {
+
+    private static final String[] snippetFields = {"normalizedContent", "normalizedDescription"};
+
+    private final Analyzer analyzer;
+
+    private final int snippetLength;
+
+    NewsSnippetHighlighter(Analyzer analyzer, int snippetLength) {
+        this.analyzer = analyzer;
+        this.snippetLength = snippetLength;
+    }
+
+    List<String> highlight(IndexSearcher searcher, Query query, TopDocs topDocs) throws IOException {
+        List<String> snippets = new ArrayList<>(topDocs.scoreDocs.length);
+        if (topDocs.scoreDocs.length == 0) {
+            return snippets;
+        }
+        int[] docIds = Arrays.stream(topDocs.scoreDocs).mapToInt(scoreDoc -> scoreDoc.doc).toArray();
+        UnifiedHighlighter highlighter = new UnifiedHighlighter(searcher, analyzer);
+        highlighter.setBreakIterator(() -> LengthGoalBreakIterator.createClosestToLength(BreakIterator.getWordInstance(), snippetLength));
+        highlighter.setFormatter(new DefaultPassageFormatter("<b>", "</b>", "... ", false) {
+            @Override
+            protected void append(StringBuilder dest, String content, int start, int end) {
+                dest.append(HtmlUtils.htmlEscape(content.substring(start, end), "UTF-8"));
+            }
+        });
+        highlighter.setMaxNoHighlightPassages(0);
+        Map<String, String[]> highlights = highlighter.highlightFields(snippetFields, query, docIds, new int[]{1, 1});
+        for (int i = 0; i < docIds.length; i++) {
+            String snippet = highlights.get("normalizedContent")[i];
+            snippets.add(snippet != null ? snippet : highlights.get("normalizedDescription")[i]);
+        }
+        return snippets;
+    }
+
+}
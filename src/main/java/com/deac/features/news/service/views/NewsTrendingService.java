@@ -0,0 +1,13 @@
+package com.deac.features.news.service.views;
+
+import java.util.List;
+
+public interface NewsTrendingService {
+
+    void registerView(Integer newsId);
+
+    void removeNews(List<Integer> newsIds);
+
+    List<Integer> getTrendingNewsIds(int count);
+
+}
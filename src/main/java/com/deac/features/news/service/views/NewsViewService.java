@@ -0,0 +1,13 @@
+package com.deac.features.news.service.views;
+
+import java.util.List;
+
+public interface NewsViewService {
+
+    void registerView(Integer newsId, String clientFingerprint);
+
+    void removeViews(List<Integer> newsIds);
+
+    void flushViews();
+
+}
@@ -0,0 +1,194 @@
+package com.deac.features.news.service.views.impl;
+
+import com.deac.features.news.persistence.projection.NewsPopularityProjection;
+import com.deac.features.news.persistence.repository.NewsRepository;
+import com.deac.features.news.service.views.NewsTrendingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the home page trending list in memory. Every article has a ring of per-day view buckets, scored with an
+ * exponential decay by age in days. Views only touch their article's buckets and mark it as viewed; the small top
+ * list of best scoring articles is updated from the viewed articles on a short interval and fully recomputed
+ * periodically, so day rollovers are reflected.
+ */
+@Service
+public class NewsTrendingServiceImpl implements NewsTrendingService {
+
+    private static final int WINDOW_DAYS = 32;
+
+    private static final long RECOMPUTE_INTERVAL_MILLIS = 3600000;
+
+    private final NewsRepository newsRepository;
+
+    private final double halfLifeDays;
+
+    private final int trendingSize;
+
+    private final Map<Integer, DailyViewBuckets> viewBuckets = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Double> trendingScores = new HashMap<>();
+
+    private final Set<Integer> viewedNewsIds = ConcurrentHashMap.newKeySet();
+
+    private volatile List<Integer> trendingNewsIds = List.of();
+
+    private final ScheduledFuture<?> recomputeTrendingTask;
+
+    private final ScheduledFuture<?> refreshTrendingTask;
+
+    @Autowired
+    public NewsTrendingServiceImpl(NewsRepository newsRepository, ThreadPoolTaskScheduler newsScheduler, Environment environment) {
+        this.newsRepository = newsRepository;
+        halfLifeDays = environment.getProperty("news.trending.halflife", Double.class, 3.0);
+        trendingSize = environment.getProperty("news.trending.size", Integer.class, 50);
+        newsScheduler.execute(this::seedTrending);
+        recomputeTrendingTask = newsScheduler.scheduleWithFixedDelay(this::recomputeTrending,
+                new Date(System.currentTimeMillis() + RECOMPUTE_INTERVAL_MILLIS),
+                RECOMPUTE_INTERVAL_MILLIS);
+        refreshTrendingTask = newsScheduler.scheduleWithFixedDelay(this::refreshTrending,
+                environment.getProperty("news.trending.refresh.interval", Long.class, 1000L));
+    }
+
+    private void seedTrending() {
+        try {
+            ZoneId zone = ZoneId.systemDefault();
+            long today = LocalDate.now(zone).toEpochDay();
+            Date since = Date.from(LocalDate.now(zone).minusDays(WINDOW_DAYS - 1).atStartOfDay(zone).toInstant());
+            for (NewsPopularityProjection news : newsRepository.findPopularityByCreateDateAfter(since)) {
+                long views = news.getNumberOfUniqueViewers() > 0 ? news.getNumberOfUniqueViewers() : news.getNumberOfViews();
+                long day = news.getCreateDate().toInstant().atZone(zone).toLocalDate().toEpochDay();
+                viewBuckets.computeIfAbsent(news.getId(), id -> new DailyViewBuckets()).add(day, Math.max(1, views), today);
+            }
+            recomputeTrending();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void registerView(Integer newsId) {
+        long today = LocalDate.now().toEpochDay();
+        viewBuckets.computeIfAbsent(newsId, id -> new DailyViewBuckets()).add(today, 1, today);
+        viewedNewsIds.add(newsId);
+    }
+
+    @Override
+    public synchronized void removeNews(List<Integer> newsIds) {
+        newsIds.forEach(newsId -> {
+            viewBuckets.remove(newsId);
+            trendingScores.remove(newsId);
+        });
+        publishTrending();
+    }
+
+    @Override
+    public List<Integer> getTrendingNewsIds(int count) {
+        List<Integer> newsIds = trendingNewsIds;
+        return newsIds.subList(0, Math.max(0, Math.min(count, newsIds.size())));
+    }
+
+    private synchronized void refreshTrending() {
+        if (viewedNewsIds.isEmpty()) {
+            return;
+        }
+        long today = LocalDate.now().toEpochDay();
+        for (Iterator<Integer> iterator = viewedNewsIds.iterator(); iterator.hasNext(); ) {
+            Integer newsId = iterator.next();
+            iterator.remove();
+            DailyViewBuckets buckets = viewBuckets.get(newsId);
+            if (buckets != null) {
+                offerToTrending(newsId, buckets.score(today, halfLifeDays));
+            }
+        }
+        publishTrending();
+    }
+
+    private void offerToTrending(Integer newsId, double score) {
+        if (trendingScores.containsKey(newsId) || trendingScores.size() < trendingSize) {
+            trendingScores.put(newsId, score);
+        } else {
+            Map.Entry<Integer, Double> lowest = Collections.min(trendingScores.entrySet(), Map.Entry.comparingByValue());
+            if (score > lowest.getValue()) {
+                trendingScores.remove(lowest.getKey());
+                trendingScores.put(newsId, score);
+            }
+        }
+    }
+
+    private synchronized void recomputeTrending() {
+        long today = LocalDate.now().toEpochDay();
+        viewBuckets.values().removeIf(buckets -> buckets.isExpired(today));
+        trendingScores.clear();
+        viewBuckets.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().score(today, halfLifeDays)))
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+                .limit(trendingSize)
+                .forEach(entry -> trendingScores.put(entry.getKey(), entry.getValue()));
+        publishTrending();
+    }
+
+    private void publishTrending() {
+        trendingNewsIds = trendingScores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Integer, Double>comparingByKey().reversed()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @PreDestroy
+    public void closeTrending() {
+        recomputeTrendingTask.cancel(false);
+        refreshTrendingTask.cancel(false);
+    }
+
+    private static class DailyViewBuckets {
+
+        private final long[] days = new long[WINDOW_DAYS];
+
+        private final long[] counts = new long[WINDOW_DAYS];
+
+        synchronized void add(long day, long views, long today) {
+            if (day <= today && today - day < WINDOW_DAYS) {
+                int slot = (int) Math.floorMod(day, (long) WINDOW_DAYS);
+                if (days[slot] != day) {
+                    days[slot] = day;
+                    counts[slot] = 0;
+                }
+                counts[slot] += views;
+            }
+        }
+
+        synchronized double score(long today, double halfLifeDays) {
+            double score = 0;
+            for (int i = 0; i < WINDOW_DAYS; i++) {
+                long age = today - days[i];
+                if (counts[i] > 0 && age >= 0 && age < WINDOW_DAYS) {
+                    score += counts[i] * Math.pow(0.5, age / halfLifeDays);
+                }
+            }
+            return score;
+        }
+
+        synchronized boolean isExpired(long today) {
+            for (int i = 0; i < WINDOW_DAYS; i++) {
+                if (counts[i] > 0 && today - days[i] < WINDOW_DAYS) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.deac.features.news.service.views.impl;
+
+import com.deac.features.news.persistence.entity.NewsViewerSketch;
+import com.deac.features.news.persistence.repository.NewsRepository;
+import com.deac.features.news.persistence.repository.NewsViewerSketchRepository;
+import com.deac.features.news.service.views.NewsTrendingService;
+import com.deac.features.news.service.views.NewsViewService;
+import com.deac.misc.HyperLogLog;
+import org.apache.commons.codec.digest.MurmurHash3;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class NewsViewServiceImpl implements NewsViewService {
+
+    private final NewsRepository newsRepository;
+
+    private final NewsViewerSketchRepository newsViewerSketchRepository;
+
+    private final NewsTrendingService newsTrendingService;
+
+    private final Map<Integer, LongAdder> pendingViews = new ConcurrentHashMap<>();
+
+    private final Map<Integer, HyperLogLog> viewerSketches = new ConcurrentHashMap<>();
+
+    private final Set<Integer> dirtyViewerSketches = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledFuture<?> flushViewsTask;
+
+    @Autowired
+    public NewsViewServiceImpl(NewsRepository newsRepository, NewsViewerSketchRepository newsViewerSketchRepository, NewsTrendingService newsTrendingService, ThreadPoolTaskScheduler newsScheduler, Environment environment) {
+        this.newsRepository = newsRepository;
+        this.newsViewerSketchRepository = newsViewerSketchRepository;
+        this.newsTrendingService = newsTrendingService;
+        long flushIntervalMillis = environment.getProperty("news.views.flush.interval", Long.class, 30000L);
+        flushViewsTask = newsScheduler.scheduleWithFixedDelay(this::flushViews, flushIntervalMillis);
+    }
+
+    @Override
+    public void registerView(Integer newsId, String clientFingerprint) {
+        pendingViews.computeIfAbsent(newsId, id -> new LongAdder()).increment();
+        newsTrendingService.registerView(newsId);
+        long fingerprintHash = MurmurHash3.hash128x64(clientFingerprint.getBytes(StandardCharsets.UTF_8))[0];
+        viewerSketches.compute(newsId, (id, viewerSketch) -> {
+            HyperLogLog localSketch = viewerSketch == null ? new HyperLogLog() : viewerSketch;
+            if (localSketch.offer(fingerprintHash)) {
+                dirtyViewerSketches.add(id);
+            }
+            return localSketch;
+        });
+    }
+
+    @Override
+    public void removeViews(List<Integer> newsIds) {
+        newsIds.forEach(newsId -> {
+            pendingViews.remove(newsId);
+            viewerSketches.remove(newsId);
+            dirtyViewerSketches.remove(newsId);
+        });
+        newsTrendingService.removeNews(newsIds);
+        newsViewerSketchRepository.deleteInBatchByNewsIds(newsIds);
+    }
+
+    @Override
+    public synchronized void flushViews() {
+        for (Map.Entry<Integer, LongAdder> pendingView : pendingViews.entrySet()) {
+            long numberOfViews = pendingView.getValue().sumThenReset();
+            if (numberOfViews == 0) {
+                continue;
+            }
+            try {
+                if (newsRepository.incrementNumberOfViews(pendingView.getKey(), numberOfViews) == 0) {
+                    pendingViews.remove(pendingView.getKey());
+                }
+            } catch (RuntimeException e) {
+                pendingView.getValue().add(numberOfViews);
+                e.printStackTrace();
+            }
+        }
+        for (Integer newsId : dirtyViewerSketches) {
+            dirtyViewerSketches.remove(newsId);
+            HyperLogLog localSketch = viewerSketches.remove(newsId);
+            if (localSketch == null) {
+                continue;
+            }
+            try {
+                flushViewerSketch(newsId, localSketch);
+            } catch (RuntimeException e) {
+                viewerSketches.merge(newsId, localSketch, (pendingSketch, failedSketch) -> {
+                    pendingSketch.merge(failedSketch);
+                    return pendingSketch;
+                });
+                dirtyViewerSketches.add(newsId);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void flushViewerSketch(Integer newsId, HyperLogLog localSketch) {
+        NewsViewerSketch viewerSketch = newsViewerSketchRepository.findById(newsId).orElse(new NewsViewerSketch(newsId, null));
+        HyperLogLog mergedSketch = HyperLogLog.fromByteArray(viewerSketch.getSketch());
+        mergedSketch.merge(localSketch);
+        if (newsRepository.updateNumberOfUniqueViewers(newsId, mergedSketch.estimate()) == 0) {
+            return;
+        }
+        viewerSketch.setSketch(mergedSketch.toByteArray());
+        newsViewerSketchRepository.save(viewerSketch);
+    }
+
+    @PreDestroy
+    public void closeViewCounter() {
+        flushViewsTask.cancel(false);
+        flushViews();
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.deac.misc;
+
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.StopwordAnalyzerBase;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+/**
+ * Index-time analyzer for the title prefix field: the {@link HungarianFoldingAnalyzer} chain followed by
+ * edge n-grams, so that a prefix lookup becomes a single term lookup.
+ */
+public final class HungarianEdgeNGramAnalyzer extends StopwordAnalyzerBase {
+
+    public static final int MIN_GRAM = 3;
+
+    public static final int MAX_GRAM = 20;
+
+    public HungarianEdgeNGramAnalyzer() {
+        super(HungarianFoldingAnalyzer.mostCommonWords);
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        StandardTokenizer tokenizer = new StandardTokenizer();
+        TokenStream tokenStream = new LowerCaseFilter(tokenizer);
+        tokenStream = new HungarianFoldingFilter(tokenStream);
+        tokenStream = new StopFilter(tokenStream, stopwords);
+        tokenStream = new EdgeNGramTokenFilter(tokenStream, MIN_GRAM, MAX_GRAM);
+        return new TokenStreamComponents(tokenizer, tokenStream);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new HungarianFoldingFilter(new LowerCaseFilter(in));
+    }
+
+}
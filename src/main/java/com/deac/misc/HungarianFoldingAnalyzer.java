@@ -0,0 +1,37 @@
+package com.deac.misc;
+
+import org.apache.lucene.analysis.*;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+import java.util.List;
+
+/**
+ * Analyzer used for both indexing and querying news titles: standard tokenization, lowercasing,
+ * accent folding and removal of the most common Hungarian words.
+ */
+public final class HungarianFoldingAnalyzer extends StopwordAnalyzerBase {
+
+    public static final CharArraySet mostCommonWords = CharArraySet.unmodifiableSet(new CharArraySet(List.of(
+            "a", "az", "es", "egy", "van", "volt", "meg", "mar", "mint", "nem", "kell",
+            "ez", "igy", "ugy", "most", "itt", "ott", "nincs", "igen", "nagy", "majd", "fog", "lesz"
+    ), false));
+
+    public HungarianFoldingAnalyzer() {
+        super(mostCommonWords);
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        StandardTokenizer tokenizer = new StandardTokenizer();
+        TokenStream tokenStream = new LowerCaseFilter(tokenizer);
+        tokenStream = new HungarianFoldingFilter(tokenStream);
+        tokenStream = new StopFilter(tokenStream, stopwords);
+        return new TokenStreamComponents(tokenizer, tokenStream);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new HungarianFoldingFilter(new LowerCaseFilter(in));
+    }
+
+}
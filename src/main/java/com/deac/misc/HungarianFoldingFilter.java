@@ -0,0 +1,74 @@
+package com.deac.misc;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+import java.io.IOException;
+
+/**
+ * Folds accented (Hungarian and other Latin) lowercase letters to their ASCII base letter and strips
+ * the punctuation characters the search ignores, in place on the term buffer. Tokens left empty are skipped.
+ */
+public final class HungarianFoldingFilter extends TokenFilter {
+
+    private static final char DROPPED = '\u0000';
+
+    private static final char[] foldTable = new char[0x180];
+
+    static {
+        for (char c = 0; c < foldTable.length; c++) {
+            foldTable[c] = c;
+        }
+        fold("àáâãäåāăą", 'a');
+        fold("çćĉċč", 'c');
+        fold("ďđ", 'd');
+        fold("èéêëēĕėęě", 'e');
+        fold("ĝğġģ", 'g');
+        fold("ìíîïĩīĭįı", 'i');
+        fold("ĺļľŀł", 'l');
+        fold("ñńņň", 'n');
+        fold("òóôõöøōŏő", 'o');
+        fold("ŕŗř", 'r');
+        fold("śŝşš", 's');
+        fold("ţťŧ", 't');
+        fold("ùúûüũūŭůűų", 'u');
+        fold("ýÿŷ", 'y');
+        fold("źżž", 'z');
+        fold(".,:;-_", DROPPED);
+    }
+
+    private final CharTermAttribute termAttribute = addAttribute(CharTermAttribute.class);
+
+    public HungarianFoldingFilter(TokenStream input) {
+        super(input);
+    }
+
+    private static void fold(String characters, char target) {
+        for (int i = 0; i < characters.length(); i++) {
+            foldTable[characters.charAt(i)] = target;
+        }
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        while (input.incrementToken()) {
+            char[] buffer = termAttribute.buffer();
+            int length = termAttribute.length();
+            int foldedLength = 0;
+            for (int i = 0; i < length; i++) {
+                char c = buffer[i];
+                char folded = c < foldTable.length ? foldTable[c] : c;
+                if (folded != DROPPED) {
+                    buffer[foldedLength++] = folded;
+                }
+            }
+            if (foldedLength > 0) {
+                termAttribute.setLength(foldedLength);
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.deac.misc;
+
+/**
+ * HyperLogLog cardinality sketch with 2^12 one-byte registers (about 4 KB, ~1.6% standard error).
+ * Sketches are merged by taking the register-wise maximum, so merging is idempotent and order independent.
+ */
+public class HyperLogLog {
+
+    private static final int PRECISION = 12;
+
+    private static final int REGISTER_COUNT = 1 << PRECISION;
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        registers = new byte[REGISTER_COUNT];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public static HyperLogLog fromByteArray(byte[] bytes) {
+        if (bytes == null || bytes.length != REGISTER_COUNT + 1 || bytes[0] != PRECISION) {
+            return new HyperLogLog();
+        }
+        byte[] registers = new byte[REGISTER_COUNT];
+        System.arraycopy(bytes, 1, registers, 0, REGISTER_COUNT);
+        return new HyperLogLog(registers);
+    }
+
+    public synchronized boolean offer(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        byte rank = (byte) Math.min(Long.numberOfLeadingZeros(hash << PRECISION) + 1, Long.SIZE - PRECISION + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    public void merge(HyperLogLog other) {
+        byte[] otherRegisters;
+        synchronized (other) {
+            otherRegisters = other.registers.clone();
+        }
+        synchronized (this) {
+            for (int i = 0; i < REGISTER_COUNT; i++) {
+                if (otherRegisters[i] > registers[i]) {
+                    registers[i] = otherRegisters[i];
+                }
+            }
+        }
+    }
+
+    public synchronized long estimate() {
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeroRegisters++;
+            }
+        }
+        double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeroRegisters > 0) {
+            estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    public synchronized byte[] toByteArray() {
+        byte[] bytes = new byte[REGISTER_COUNT + 1];
+        bytes[0] = PRECISION;
+        System.arraycopy(registers, 0, bytes, 1, REGISTER_COUNT);
+        return bytes;
+    }
+
+}
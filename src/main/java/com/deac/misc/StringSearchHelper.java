@@ -1,45 +1,30 @@
 package com.deac.misc;
 
-import java.util.Arrays;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class StringSearchHelper {
 
-    private static final Map<String, String> nonAsciiCharMap = Map.of(
-            "á", "a",
-            "é", "e",
-            "í", "i",
-            "óöő", "o",
-            "úüű", "u"
-    );
-
-    private static final List<String> mostCommonWords = List.of(
-            "a", "az", "es", "egy", "van", "volt", "meg", "mar", "meg", "mint", "nem", "kell",
-            "ez", "igy", "ugy", "most", "itt", "ott", "nincs", "igen", "nagy", "majd", "most", "fog", "lesz"
-    );
+    private static final Analyzer searchAnalyzer = new HungarianFoldingAnalyzer();
 
     public static String[] normalizeSearchTerm(String term) {
-        String tmp = term.toLowerCase().replaceAll("[.,:;\\-_]", "");
-        StringBuilder builder = new StringBuilder();
-        for (int i = 0; i < tmp.length(); i++) {
-            String c = String.valueOf(tmp.charAt(i));
-            boolean didSwap = false;
-            for (Map.Entry<String, String> entry : nonAsciiCharMap.entrySet()) {
-                if (entry.getKey().contains(c)) {
-                    builder.append(entry.getValue());
-                    didSwap = true;
-                    break;
-                }
-            }
-            if (!didSwap) {
-                builder.append(c);
+        List<String> keywords = new ArrayList<>();
+        try (TokenStream tokenStream = searchAnalyzer.tokenStream("normalizedTitle", term)) {
+            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                keywords.add(termAttribute.toString());
             }
+            tokenStream.end();
+        } catch (IOException e) {
+            return new String[0];
         }
-        tmp = builder.toString();
-        return Arrays.stream(tmp.trim().split("\\s+"))
-                .filter(s -> !mostCommonWords.contains(s))
-                .toArray(String[]::new);
+        return keywords.toArray(String[]::new);
     }
 
 }
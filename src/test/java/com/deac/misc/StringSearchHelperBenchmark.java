@@ -0,0 +1,37 @@
+package com.deac.misc;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Manual benchmark of the per-term normalization cost of the analyzer against the legacy implementation. It is
+ * not picked up by the test run; start it with its main method and compare the printed numbers.
+ */
+public class StringSearchHelperBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20000;
+
+    private static final int MEASURED_ROUNDS = 50000;
+
+    public static void main(String[] args) {
+        List<String> titles = StringSearchHelperTest.sampleTitles;
+        long terms = MEASURED_ROUNDS * titles.stream().mapToLong(title -> title.split("\\s+").length).sum();
+        run(titles, WARMUP_ROUNDS, LegacyStringSearchHelper::normalizeSearchTerm);
+        run(titles, WARMUP_ROUNDS, StringSearchHelper::normalizeSearchTerm);
+        long legacyNanos = run(titles, MEASURED_ROUNDS, LegacyStringSearchHelper::normalizeSearchTerm);
+        long analyzerNanos = run(titles, MEASURED_ROUNDS, StringSearchHelper::normalizeSearchTerm);
+        System.out.printf("legacy:   %d ns/term%n", legacyNanos / terms);
+        System.out.printf("analyzer: %d ns/term%n", analyzerNanos / terms);
+    }
+
+    private static long run(List<String> titles, int rounds, Function<String, String[]> normalizer) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            for (String title : titles) {
+                normalizer.apply(title);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+}
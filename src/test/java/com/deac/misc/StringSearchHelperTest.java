@@ -0,0 +1,55 @@
+package com.deac.misc;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class StringSearchHelperTest {
+
+    static final List<String> sampleTitles = List.of(
+            "Árvíztűrő tükörfúrógép",
+            "Kezdődik a bajnokság, és a csapat készen áll",
+            "Új edző érkezik: Kovács Péter",
+            "Az év sportolója; díjátadó a városházán",
+            "Nagy győzelem egy szoros meccsen",
+            "Ősszel indul az utánpótlás_program",
+            "Most már nincs megállás a döntőig"
+    );
+
+    @Test
+    public void foldsAccentedLetters() {
+        assertArrayEquals(new String[]{"arvizturo", "tukorfurogep"}, StringSearchHelper.normalizeSearchTerm("Árvíztűrő TÜKÖRFÚRÓGÉP"));
+    }
+
+    @Test
+    public void dropsIgnoredPunctuation() {
+        assertArrayEquals(new String[]{"bajnoksag", "dontoje"}, StringSearchHelper.normalizeSearchTerm("bajnokság, döntője."));
+        assertArrayEquals(new String[]{"utanpotlasprogram"}, StringSearchHelper.normalizeSearchTerm("utánpótlás_program"));
+    }
+
+    @Test
+    public void removesMostCommonWords() {
+        assertArrayEquals(new String[]{"kutya", "macska"}, StringSearchHelper.normalizeSearchTerm("a kutya és egy macska"));
+        assertArrayEquals(new String[0], StringSearchHelper.normalizeSearchTerm("ez most nem volt itt"));
+    }
+
+    @Test
+    public void splitsOnTokenizerBoundaries() {
+        // The tokenizer splits on hyphens, where the old regex joined the parts into one keyword
+        assertArrayEquals(new String[]{"e", "mail"}, StringSearchHelper.normalizeSearchTerm("e-mail"));
+        assertArrayEquals(new String[]{"email"}, LegacyStringSearchHelper.normalizeSearchTerm("e-mail"));
+        // Punctuation outside the old regex no longer sticks to the keyword
+        assertArrayEquals(new String[]{"gol"}, StringSearchHelper.normalizeSearchTerm("gól!"));
+        assertArrayEquals(new String[]{"gol!"}, LegacyStringSearchHelper.normalizeSearchTerm("gól!"));
+    }
+
+    @Test
+    public void matchesLegacyNormalizationOnTitles() {
+        for (String title : sampleTitles) {
+            assertArrayEquals(title, LegacyStringSearchHelper.normalizeSearchTerm(title), StringSearchHelper.normalizeSearchTerm(title));
+        }
+    }
+
+}